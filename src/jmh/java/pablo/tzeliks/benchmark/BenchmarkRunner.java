@@ -0,0 +1,48 @@
+package pablo.tzeliks.benchmark;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+// Runs the suite once per thread count: throughput, latency percentiles (p99 via SampleTime)
+// and allocation per op (gc.alloc.rate.norm). JSON results land in target/ to diff against a baseline.
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+
+        int[] threadCounts = parseList(System.getProperty("bench.threads", "1,4,16"));
+        String[] sizes = System.getProperty("bench.sizes", "1000,10000,100000").split(",");
+        String include = args.length > 0 ? args[0] : RepositoryBenchmark.class.getSimpleName();
+
+        for (int threads : threadCounts) {
+
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .param("tableSize", sizes)
+                    .threads(threads)
+                    .mode(Mode.Throughput)
+                    .mode(Mode.SampleTime)
+                    .timeUnit(TimeUnit.MICROSECONDS)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("target/jmh-threads-" + threads + ".json")
+                    .build();
+
+            new Runner(options).run();
+        }
+    }
+
+    private static int[] parseList(String value) {
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+    }
+}
@@ -0,0 +1,118 @@
+package pablo.tzeliks.benchmark;
+
+import pablo.tzeliks.domain.Maintenance;
+import pablo.tzeliks.domain.Vehicle;
+import pablo.tzeliks.domain.VehicleStatus;
+import pablo.tzeliks.infra.MaintenanceRepositoryImpl;
+import pablo.tzeliks.infra.VehicleRepositoryImpl;
+import pablo.tzeliks.utils.DatabaseConnection;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// Recreates the schema and seeds it; like the integration test, it wipes the configured database.
+final class BenchmarkSchema {
+
+    static final int MAINTENANCES_PER_VEHICLE = 10;
+
+    private static final String CREATE_VEHICLE = """
+            CREATE TABLE vehicle (
+                id INT PRIMARY KEY AUTO_INCREMENT,
+                license_plate VARCHAR(20) UNIQUE NOT NULL,
+                model VARCHAR(100) NOT NULL,
+                manufacturing_date DATE NOT NULL,
+                status VARCHAR(20) NOT NULL,
+                version INT NOT NULL DEFAULT 0,
+                INDEX idx_vehicle_status_id (status, id)
+            );
+            """;
+
+    private static final String CREATE_MAINTENANCE = """
+            CREATE TABLE maintenance (
+                id INT PRIMARY KEY AUTO_INCREMENT,
+                vehicle_id INT NOT NULL,
+                description VARCHAR(255) NOT NULL,
+                cost DECIMAL(10, 2) NOT NULL,
+                date DATE NOT NULL,
+                FOREIGN KEY (vehicle_id) REFERENCES vehicle(id) ON DELETE CASCADE
+            );
+            """;
+
+    private static final String CREATE_MAINTENANCE_SUMMARY = """
+            CREATE TABLE vehicle_maintenance_summary (
+                vehicle_id INT PRIMARY KEY,
+                total_cost DECIMAL(14, 2) NOT NULL,
+                maintenance_count INT NOT NULL,
+                last_maintenance_date DATE,
+                FOREIGN KEY (vehicle_id) REFERENCES vehicle(id) ON DELETE CASCADE
+            );
+            """;
+
+    private static final String CREATE_CHANGE_LOG = """
+            CREATE TABLE change_log (
+                id BIGINT PRIMARY KEY AUTO_INCREMENT,
+                entity VARCHAR(20) NOT NULL,
+                entity_id INT NOT NULL,
+                operation VARCHAR(10) NOT NULL,
+                created_at DATETIME(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3)
+            );
+            """;
+
+    private static final String[] MODELS = {"Volvo FH", "Scania R450", "Mercedes Actros", "Iveco S-Way", "DAF XF"};
+
+    private BenchmarkSchema() {
+    }
+
+    static void recreate() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+
+            stmt.execute("DROP TABLE IF EXISTS change_log");
+            stmt.execute("DROP TABLE IF EXISTS vehicle_maintenance_summary");
+            stmt.execute("DROP TABLE IF EXISTS maintenance");
+            stmt.execute("DROP TABLE IF EXISTS vehicle");
+
+            stmt.execute(CREATE_VEHICLE);
+            stmt.execute(CREATE_MAINTENANCE);
+            stmt.execute(CREATE_MAINTENANCE_SUMMARY);
+            stmt.execute(CREATE_CHANGE_LOG);
+        }
+    }
+
+    // Returns the generated vehicle ids
+    static int[] seed(int vehicles) {
+
+        VehicleRepositoryImpl vehicleRepository = new VehicleRepositoryImpl();
+        MaintenanceRepositoryImpl maintenanceRepository = new MaintenanceRepositoryImpl();
+
+        List<Vehicle> batch = new ArrayList<>(vehicles);
+        VehicleStatus[] statuses = VehicleStatus.values();
+
+        for (int i = 0; i < vehicles; i++) {
+            batch.add(new Vehicle(0, "SEED-" + i, MODELS[i % MODELS.length],
+                    LocalDate.of(2010, 1, 1).plusDays(i % 5000), statuses[i % statuses.length]));
+        }
+
+        List<Vehicle> saved = vehicleRepository.saveAll(batch);
+        int[] ids = saved.stream().mapToInt(Vehicle::getId).toArray();
+
+        // Only a slice of the fleet gets history so the join benchmarks stay comparable across sizes
+        for (int i = 0; i < Math.min(ids.length, 1000); i++) {
+
+            List<Maintenance> history = new ArrayList<>(MAINTENANCES_PER_VEHICLE);
+
+            for (int j = 0; j < MAINTENANCES_PER_VEHICLE; j++) {
+                history.add(new Maintenance(0, ids[i], "Seed " + j, BigDecimal.valueOf(100 + j), LocalDate.now()));
+            }
+
+            maintenanceRepository.saveAll(ids[i], history);
+        }
+
+        return ids;
+    }
+}
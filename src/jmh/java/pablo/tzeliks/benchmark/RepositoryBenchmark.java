@@ -0,0 +1,125 @@
+package pablo.tzeliks.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pablo.tzeliks.domain.Maintenance;
+import pablo.tzeliks.domain.Vehicle;
+import pablo.tzeliks.domain.VehicleStatus;
+import pablo.tzeliks.infra.MaintenanceRepositoryImpl;
+import pablo.tzeliks.infra.VehicleRepositoryImpl;
+import pablo.tzeliks.service.MaintenanceService;
+import pablo.tzeliks.service.VehicleService;
+import pablo.tzeliks.utils.DatabaseConfig;
+import pablo.tzeliks.utils.DatabaseConnection;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+public class RepositoryBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int tableSize;
+
+    // Compare driver flag sets with e.g. -p profile=OLTP,BULK_IMPORT,ANALYTICS_STREAMING
+    @Param({"OLTP"})
+    public String profile;
+
+    private final AtomicLong plateSequence = new AtomicLong();
+
+    private VehicleRepositoryImpl vehicleRepository;
+    private MaintenanceRepositoryImpl maintenanceRepository;
+    private VehicleService vehicleService;
+    private MaintenanceService maintenanceService;
+
+    private int[] vehicleIds;
+    private int historyVehicles;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        System.setProperty(DatabaseConfig.PREFIX + "profile", profile);
+        DatabaseConnection.configure(DatabaseConfig.load());
+
+        BenchmarkSchema.recreate();
+
+        vehicleIds = BenchmarkSchema.seed(tableSize);
+        historyVehicles = Math.min(vehicleIds.length, 1000);
+
+        vehicleRepository = new VehicleRepositoryImpl();
+        maintenanceRepository = new MaintenanceRepositoryImpl();
+        vehicleService = new VehicleService(vehicleRepository);
+        maintenanceService = new MaintenanceService(maintenanceRepository, vehicleRepository);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        DatabaseConnection.shutdown();
+    }
+
+    @Benchmark
+    public Vehicle save() {
+        long n = plateSequence.incrementAndGet();
+        return vehicleRepository.save(new Vehicle(0, "B-" + tableSize + "-" + n, "Bench", LocalDate.now(), VehicleStatus.AVAILABLE));
+    }
+
+    @Benchmark
+    public Vehicle findById() {
+        return vehicleRepository.findById(randomVehicle());
+    }
+
+    @Benchmark
+    public List<Vehicle> findAll() {
+        return vehicleRepository.findAll();
+    }
+
+    @Benchmark
+    public Vehicle findAllMaintenances() {
+        return vehicleRepository.findAllMaintenances(randomVehicleWithHistory());
+    }
+
+    @Benchmark
+    public boolean updateStatus() {
+        VehicleStatus[] statuses = VehicleStatus.values();
+        return vehicleRepository.updateStatus(randomVehicle(), statuses[ThreadLocalRandom.current().nextInt(statuses.length)]);
+    }
+
+    @Benchmark
+    public BigDecimal calculateTotalCostsFromOneVehicle() {
+        return maintenanceRepository.calculateTotalCostsFromOneVehicle(randomVehicleWithHistory());
+    }
+
+    // Service layer: the busiest write path, including its business rules
+    @Benchmark
+    public Maintenance addMaintenance() {
+        Maintenance maintenance = new Maintenance(0, 0, "Bench", BigDecimal.TEN, LocalDate.now());
+        return maintenanceService.addMaintenance(randomVehicle(), maintenance);
+    }
+
+    @Benchmark
+    public Vehicle serviceFindById() {
+        return vehicleService.findById(randomVehicle());
+    }
+
+    private int randomVehicle() {
+        return vehicleIds[ThreadLocalRandom.current().nextInt(vehicleIds.length)];
+    }
+
+    private int randomVehicleWithHistory() {
+        return vehicleIds[ThreadLocalRandom.current().nextInt(historyVehicles)];
+    }
+}
@@ -0,0 +1,22 @@
+package pablo.tzeliks.domain;
+
+import java.time.LocalDateTime;
+
+// One row of the change_log outbox; versions grow with every committed write, across all nodes.
+public record ChangeEvent(long version, Entity entity, int entityId, Operation operation, LocalDateTime createdAt) {
+
+    public enum Entity {
+        VEHICLE,
+        MAINTENANCE
+    }
+
+    public enum Operation {
+        INSERT,
+        UPDATE,
+        DELETE
+    }
+
+    public boolean isVehicle() {
+        return entity == Entity.VEHICLE;
+    }
+}
@@ -0,0 +1,7 @@
+package pablo.tzeliks.domain;
+
+import java.math.BigDecimal;
+
+// One group of a fleet cost report; key is the plate, model, status or "yyyy-MM" month depending on the rollup.
+public record CostRollup(String key, long maintenanceCount, BigDecimal totalCost, BigDecimal averageCost) {
+}
@@ -1,8 +1,6 @@
 package pablo.tzeliks.domain;
 
 import java.math.BigDecimal;
-import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.time.LocalDate;
 
 public class Maintenance {
@@ -64,17 +62,6 @@ public class Maintenance {
         this.date = date;
     }
 
-    // Additional
-    public static Maintenance mapRow(ResultSet rs) throws SQLException {
-        return new Maintenance(
-                rs.getInt("id"),
-                rs.getInt("vehicle_id"),
-                rs.getString("description"),
-                rs.getBigDecimal("cost"),
-                rs.getDate("date").toLocalDate()
-        );
-    }
-
     @Override
     public String toString() {
         return "Maintenance{" +
@@ -0,0 +1,7 @@
+package pablo.tzeliks.domain;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record MaintenanceSummary(int vehicleId, BigDecimal totalCost, int maintenanceCount, LocalDate lastMaintenanceDate) {
+}
@@ -0,0 +1,11 @@
+package pablo.tzeliks.domain;
+
+import java.util.List;
+
+// One slice of a keyset-paginated listing; nextCursor is the id to pass as "afterId" for the next page.
+public record Page<T>(List<T> items, Integer nextCursor) {
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -2,8 +2,6 @@ package pablo.tzeliks.domain;
 
 import pablo.tzeliks.Main;
 
-import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
@@ -16,14 +14,22 @@ public class Vehicle {
     private LocalDate manufacturingDate;
     private VehicleStatus status;
 
+    // Bumped by every write to the row; update only succeeds against the version it was read at
+    private int version;
+
     private List<Maintenance> maintenances = new ArrayList<>();
 
-    public Vehicle(int id, String licensePlate, String model, LocalDate manufacturingDate, VehicleStatus status) {
+    public Vehicle(int id, String licensePlate, String model, LocalDate manufacturingDate, VehicleStatus status, int version) {
         this.id = id;
         this.licensePlate = licensePlate;
         this.model = model;
         this.manufacturingDate = manufacturingDate;
         this.status = status;
+        this.version = version;
+    }
+
+    public Vehicle(int id, String licensePlate, String model, LocalDate manufacturingDate, VehicleStatus status) {
+        this(id, licensePlate, model, manufacturingDate, status, 0);
     }
 
     public int getId() {
@@ -66,6 +72,14 @@ public class Vehicle {
         this.status = status;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     public List<Maintenance> getMaintenances() {
         return maintenances;
     }
@@ -75,14 +89,10 @@ public class Vehicle {
     }
 
     // Additional
-    public static Vehicle mapRow(ResultSet rs) throws SQLException {
-        return new Vehicle(
-                rs.getInt(1),
-                rs.getString(2),
-                rs.getString(3),
-                rs.getDate(4).toLocalDate(),
-                VehicleStatus.valueOf(rs.getString(5))
-        );
+    public Vehicle copy() {
+        Vehicle copy = new Vehicle(id, licensePlate, model, manufacturingDate, status, version);
+        copy.setMaintenances(new ArrayList<>(maintenances));
+        return copy;
     }
 
     @Override
@@ -93,6 +103,7 @@ public class Vehicle {
                 ", model='" + model + '\'' +
                 ", manufacturingDate=" + manufacturingDate +
                 ", status=" + status +
+                ", version=" + version +
                 ", maintenances=" + maintenances +
                 '}';
     }
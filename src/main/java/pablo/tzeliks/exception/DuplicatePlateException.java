@@ -0,0 +1,17 @@
+package pablo.tzeliks.exception;
+
+// Raised when the license_plate UNIQUE constraint rejects a write.
+public class DuplicatePlateException extends RuntimeException {
+
+    private final String licensePlate;
+
+    public DuplicatePlateException(String licensePlate, Throwable cause) {
+        super("Veículo já cadastrado com esta placa!", cause);
+        this.licensePlate = licensePlate;
+    }
+
+    // null when the plate could not be told apart, e.g. inside a batch
+    public String getLicensePlate() {
+        return licensePlate;
+    }
+}
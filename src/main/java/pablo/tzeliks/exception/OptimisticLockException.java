@@ -0,0 +1,28 @@
+package pablo.tzeliks.exception;
+
+// Raised when an update finds the row at a different version than the one it was read at.
+public class OptimisticLockException extends RuntimeException {
+
+    private final int vehicleId;
+    private final int expectedVersion;
+    private final int currentVersion;
+
+    public OptimisticLockException(int vehicleId, int expectedVersion, int currentVersion) {
+        super("Veículo alterado por outra operação! Versão esperada " + expectedVersion + ", atual " + currentVersion);
+        this.vehicleId = vehicleId;
+        this.expectedVersion = expectedVersion;
+        this.currentVersion = currentVersion;
+    }
+
+    public int getVehicleId() {
+        return vehicleId;
+    }
+
+    public int getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    public int getCurrentVersion() {
+        return currentVersion;
+    }
+}
@@ -0,0 +1,19 @@
+package pablo.tzeliks.infra;
+
+import pablo.tzeliks.domain.CostRollup;
+
+import java.util.stream.Stream;
+
+// Every method is one set-based query streamed back row by row; callers must close the stream.
+public interface AnalyticsRepository {
+
+    Stream<CostRollup> costByVehicle();
+
+    Stream<CostRollup> costByModel();
+
+    Stream<CostRollup> costByStatus();
+
+    Stream<CostRollup> costByMonth();
+
+    Stream<CostRollup> topExpensiveVehicles(int limit);
+}
@@ -0,0 +1,139 @@
+package pablo.tzeliks.infra;
+
+import pablo.tzeliks.domain.CostRollup;
+import pablo.tzeliks.infra.mapping.RowMapper;
+import pablo.tzeliks.infra.mapping.RowMappers;
+import pablo.tzeliks.utils.DatabaseConnection;
+
+import java.lang.invoke.MethodHandles;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.*;
+import java.util.stream.Stream;
+
+public class AnalyticsRepositoryImpl implements AnalyticsRepository {
+
+    // Columns every rollup query selects; the average is derived in Java so all rollups round it the same way
+    private record RollupRow(String groupKey, long maintenanceCount, BigDecimal totalCost) {
+    }
+
+    private static final RowMapper<RollupRow> ROW_MAPPER = RowMappers.of(RollupRow.class, MethodHandles.lookup());
+
+    // Per-vehicle rollups come straight from the maintained summary table instead of re-aggregating history
+    @Override
+    public Stream<CostRollup> costByVehicle() {
+
+        String query = """
+                SELECT v.license_plate AS group_key,
+                COALESCE(s.maintenance_count, 0) AS maintenance_count,
+                COALESCE(s.total_cost, 0) AS total_cost
+                FROM vehicle v
+                LEFT JOIN vehicle_maintenance_summary s ON s.vehicle_id = v.id
+                ORDER BY v.id;
+                """;
+
+        return stream(query);
+    }
+
+    @Override
+    public Stream<CostRollup> costByModel() {
+
+        String query = """
+                SELECT v.model AS group_key,
+                COUNT(m.id) AS maintenance_count,
+                COALESCE(SUM(m.cost), 0) AS total_cost
+                FROM vehicle v
+                LEFT JOIN maintenance m ON m.vehicle_id = v.id
+                GROUP BY v.model
+                ORDER BY v.model;
+                """;
+
+        return stream(query);
+    }
+
+    @Override
+    public Stream<CostRollup> costByStatus() {
+
+        String query = """
+                SELECT v.status AS group_key,
+                COUNT(m.id) AS maintenance_count,
+                COALESCE(SUM(m.cost), 0) AS total_cost
+                FROM vehicle v
+                LEFT JOIN maintenance m ON m.vehicle_id = v.id
+                GROUP BY v.status
+                ORDER BY v.status;
+                """;
+
+        return stream(query);
+    }
+
+    @Override
+    public Stream<CostRollup> costByMonth() {
+
+        String query = """
+                SELECT DATE_FORMAT(m.date, '%Y-%m') AS group_key,
+                COUNT(*) AS maintenance_count,
+                SUM(m.cost) AS total_cost
+                FROM maintenance m
+                GROUP BY group_key
+                ORDER BY group_key;
+                """;
+
+        return stream(query);
+    }
+
+    @Override
+    public Stream<CostRollup> topExpensiveVehicles(int limit) {
+
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+
+        String query = """
+                SELECT v.license_plate AS group_key,
+                s.maintenance_count,
+                s.total_cost
+                FROM vehicle_maintenance_summary s
+                JOIN vehicle v ON v.id = s.vehicle_id
+                ORDER BY s.total_cost DESC, s.vehicle_id
+                LIMIT ?;
+                """;
+
+        return stream(query, limit);
+    }
+
+    // Additional
+
+    private Stream<CostRollup> stream(String query, Object... params) {
+
+        Connection conn = DatabaseConnection.getReadConnection();
+        PreparedStatement ps = null;
+
+        try {
+            ps = conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(ResultSetStream.streamingFetchSize());
+
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+
+            return ResultSetStream.of(conn, ps, ROW_MAPPER).map(AnalyticsRepositoryImpl::toCostRollup);
+
+        } catch (SQLException e) {
+            ResultSetStream.closeQuietly(ps, conn);
+
+            throw new RuntimeException("An error Ocurred: " + e.getMessage());
+        }
+    }
+
+    private static CostRollup toCostRollup(RollupRow row) {
+
+        long count = row.maintenanceCount();
+        BigDecimal total = row.totalCost();
+        BigDecimal average = count == 0
+                ? BigDecimal.ZERO
+                : total.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP);
+
+        return new CostRollup(row.groupKey(), count, total, average);
+    }
+}
@@ -0,0 +1,344 @@
+package pablo.tzeliks.infra;
+
+import pablo.tzeliks.domain.ChangeEvent;
+import pablo.tzeliks.domain.Page;
+import pablo.tzeliks.domain.Vehicle;
+import pablo.tzeliks.domain.VehicleStatus;
+import pablo.tzeliks.utils.DatabaseConnection;
+import pablo.tzeliks.utils.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// Read-through LRU cache for findById; every write through this repository invalidates the vehicle,
+// and writes from elsewhere are dropped once they arrive through onChanges.
+public class CachingVehicleRepository implements VehicleRepository {
+
+    public record Stats(long hits, long misses, long evictions) {
+
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0.0 : (double) hits / requests;
+        }
+    }
+
+    private record Entry(Vehicle vehicle, long expiresAtNanos) {
+    }
+
+    private final VehicleRepository delegate;
+    private final long ttlNanos;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    // Bumped by invalidateAll only, so a load started before it cannot refill the cache afterwards
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Map<Integer, Entry> entries;
+
+    // A token per id being loaded; invalidating the id drops its token, so that load's result is not stored.
+    // Guarded by entries, like the entries themselves.
+    private final Map<Integer, Object> loading = new HashMap<>();
+
+    public CachingVehicleRepository(VehicleRepository delegate, int maxEntries) {
+        this(delegate, maxEntries, 0, TimeUnit.MILLISECONDS);
+    }
+
+    // A ttl of 0 keeps entries until they are evicted or invalidated
+    public CachingVehicleRepository(VehicleRepository delegate, int maxEntries, long ttl, TimeUnit unit) {
+
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maxEntries);
+        }
+
+        this.delegate = delegate;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+
+                if (size() > maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public Vehicle findById(int id) {
+
+        // Inside a transaction the row may be uncommitted; it must not reach other threads through the cache
+        if (TransactionTemplate.isActive()) {
+            return delegate.findById(id);
+        }
+
+        Vehicle cached = lookup(id);
+
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached.copy();
+        }
+
+        misses.incrementAndGet();
+
+        long startGeneration = generation.get();
+        Object token = beginLoad(id);
+
+        try {
+            // Fills come from the primary; a lagging replica would cache a row older than the invalidation that cleared it
+            Vehicle dbVehicle = DatabaseConnection.onPrimary(() -> delegate.findById(id));
+
+            if (dbVehicle != null) {
+                store(id, dbVehicle.copy(), token, startGeneration);
+            }
+
+            return dbVehicle;
+        } finally {
+            endLoad(id, token);
+        }
+    }
+
+    @Override
+    public Map<Integer, Vehicle> findByIds(Collection<Integer> ids) {
+
+        if (TransactionTemplate.isActive()) {
+            return delegate.findByIds(ids);
+        }
+
+        Map<Integer, Vehicle> found = new HashMap<>();
+        Set<Integer> missing = new LinkedHashSet<>();
+
+        for (Integer id : ids) {
+
+            Vehicle cached = lookup(id);
+
+            if (cached != null) {
+                hits.incrementAndGet();
+                found.put(id, cached.copy());
+            } else if (missing.add(id)) {
+                misses.incrementAndGet();
+            }
+        }
+
+        if (!missing.isEmpty()) {
+
+            long startGeneration = generation.get();
+            Map<Integer, Object> tokens = new HashMap<>();
+
+            for (Integer id : missing) {
+                tokens.put(id, beginLoad(id));
+            }
+
+            try {
+                DatabaseConnection.onPrimary(() -> delegate.findByIds(missing)).forEach((id, dbVehicle) -> {
+                    store(id, dbVehicle.copy(), tokens.get(id), startGeneration);
+                    found.put(id, dbVehicle);
+                });
+            } finally {
+                tokens.forEach(this::endLoad);
+            }
+        }
+
+        return found;
+    }
+
+    @Override
+    public Vehicle save(Vehicle vehicle) {
+        Vehicle saved = delegate.save(vehicle);
+        invalidate(saved.getId());
+        return saved;
+    }
+
+    @Override
+    public List<Vehicle> saveAll(Collection<Vehicle> vehicles) {
+        List<Vehicle> saved = delegate.saveAll(vehicles);
+        saved.forEach(vehicle -> invalidate(vehicle.getId()));
+        return saved;
+    }
+
+    @Override
+    public List<Vehicle> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Stream<Vehicle> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public Page<Vehicle> findPage(int afterId, int limit, VehicleStatus status) {
+        return delegate.findPage(afterId, limit, status);
+    }
+
+    @Override
+    public Vehicle update(Vehicle newVehicle) {
+        try {
+            return delegate.update(newVehicle);
+        } finally {
+            invalidate(newVehicle.getId());
+        }
+    }
+
+    @Override
+    public void delete(int id) {
+        try {
+            delegate.delete(id);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public boolean isValidPlate(String licensePlate) {
+        return delegate.isValidPlate(licensePlate);
+    }
+
+    @Override
+    public boolean updateStatus(int id, VehicleStatus newStatus) {
+        try {
+            return delegate.updateStatus(id, newStatus);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public int updateStatus(Collection<Integer> ids, VehicleStatus newStatus) {
+        try {
+            return delegate.updateStatus(ids, newStatus);
+        } finally {
+            ids.forEach(this::invalidate);
+        }
+    }
+
+    @Override
+    public int updateStatusBulk(Map<Integer, VehicleStatus> newStatuses) {
+        try {
+            return delegate.updateStatusBulk(newStatuses);
+        } finally {
+            newStatuses.keySet().forEach(this::invalidate);
+        }
+    }
+
+    @Override
+    public Vehicle saveOrUpdate(Vehicle vehicle) {
+        Vehicle saved = delegate.saveOrUpdate(vehicle);
+        invalidate(saved.getId());
+        return saved;
+    }
+
+    @Override
+    public Vehicle findAllMaintenances(int id) {
+        return delegate.findAllMaintenances(id);
+    }
+
+    @Override
+    public Map<Integer, Vehicle> findAllMaintenances(Collection<Integer> ids) {
+        return delegate.findAllMaintenances(ids);
+    }
+
+    @Override
+    public void invalidate(int id) {
+        remove(id);
+
+        // Another thread may load the old committed row before this transaction commits; drop it again then
+        if (TransactionTemplate.isActive()) {
+            TransactionTemplate.afterCommit(() -> remove(id));
+        }
+    }
+
+    // Additional
+
+    // Keeps the cache coherent with writes made elsewhere; when the feed loses track of a change, everything goes
+    public void subscribeTo(ChangeFeedPoller poller) {
+        poller.subscribe(this::onChanges);
+        poller.onMissedChanges(this::invalidateAll);
+    }
+
+    // Change feed subscriber: drops vehicles written by other nodes, or by code that bypassed this decorator
+    public void onChanges(List<ChangeEvent> events) {
+        for (ChangeEvent event : events) {
+            if (event.isVehicle()) {
+                remove(event.entityId());
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(hits.get(), misses.get(), evictions.get());
+    }
+
+    // Only this id's load in flight is cancelled; fills of other vehicles go ahead
+    private void remove(int id) {
+        synchronized (entries) {
+            entries.remove(id);
+            loading.remove(id);
+        }
+    }
+
+    // A newer load of the same id replaces the token, so only the latest one may store
+    private Object beginLoad(int id) {
+        Object token = new Object();
+
+        synchronized (entries) {
+            loading.put(id, token);
+        }
+
+        return token;
+    }
+
+    private void endLoad(int id, Object token) {
+        synchronized (entries) {
+            loading.remove(id, token);
+        }
+    }
+
+    private Vehicle lookup(int id) {
+        synchronized (entries) {
+            Entry entry = entries.get(id);
+
+            if (entry == null) {
+                return null;
+            }
+
+            if (ttlNanos > 0 && System.nanoTime() - entry.expiresAtNanos() > 0) {
+                entries.remove(id);
+                return null;
+            }
+
+            return entry.vehicle();
+        }
+    }
+
+    private void store(int id, Vehicle vehicle, Object token, long startGeneration) {
+        long expiresAt = System.nanoTime() + ttlNanos;
+
+        synchronized (entries) {
+            if (loading.remove(id, token) && generation.get() == startGeneration) {
+                entries.put(id, new Entry(vehicle, expiresAt));
+            }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package pablo.tzeliks.infra;
+
+import pablo.tzeliks.domain.ChangeEvent;
+import pablo.tzeliks.utils.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Tails the change_log outbox and hands every new batch of events, in version order, to the local subscribers.
+// A transaction that commits after later versions were read is delivered late, out of order; subscribers
+// re-read current state, so order does not matter to them. Each node runs its own poller.
+public class ChangeFeedPoller implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger("pablo.tzeliks.changefeed");
+
+    private static final int BATCH_SIZE = 500;
+
+    // Versions are handed out at insert but become visible at commit, so a hole may be a transaction still in flight.
+    // Holes are re-read on every poll and published late if they appear. Most never will: rolled-back appends and
+    // auto-increment values skipped by batches leave permanent gaps, so after this long a hole is dropped silently.
+    private static final long HOLE_TIMEOUT_NANOS = TimeUnit.MINUTES.toNanos(10);
+    private static final int MAX_PENDING_HOLES = 10_000;
+
+    private final List<Consumer<List<ChangeEvent>>> subscribers = new CopyOnWriteArrayList<>();
+    private final List<Runnable> missedChangeListeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler;
+
+    // Missing versions below lastVersion, mapped to when they were first missed; ascending in both
+    private final NavigableMap<Long, Long> holes = new TreeMap<>();
+
+    private long lastVersion;
+    private boolean holesDropped;
+
+    // Starts after the newest change already in the log; earlier history is not replayed
+    public ChangeFeedPoller(long pollInterval, TimeUnit unit) {
+        this(latestVersion(), pollInterval, unit);
+    }
+
+    public ChangeFeedPoller(long afterVersion, long pollInterval, TimeUnit unit) {
+
+        if (pollInterval <= 0) {
+            throw new IllegalArgumentException("Poll interval must be positive: " + pollInterval);
+        }
+
+        this.lastVersion = afterVersion;
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "change-feed-poller");
+            t.setDaemon(true);
+            return t;
+        });
+
+        scheduler.scheduleWithFixedDelay(this::pollQuietly, pollInterval, pollInterval, unit);
+    }
+
+    public void subscribe(Consumer<List<ChangeEvent>> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    public void unsubscribe(Consumer<List<ChangeEvent>> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    // Runs when more holes open than can be tracked: changes in them may never be delivered,
+    // so whoever holds state derived from the feed should drop or reload all of it
+    public void onMissedChanges(Runnable listener) {
+        missedChangeListeners.add(listener);
+    }
+
+    public synchronized long getLastVersion() {
+        return lastVersion;
+    }
+
+    public synchronized int getPendingHoles() {
+        return holes.size();
+    }
+
+    // Publishes everything committed since the last poll, late arrivals included, and returns how many events went out
+    public synchronized int poll() {
+
+        int published = 0;
+
+        // The outbox is read from the primary; a lagging replica would only delay delivery
+        try (Connection conn = DatabaseConnection.getConnection()) {
+
+            if (!holes.isEmpty()) {
+                List<ChangeEvent> late = ChangeLog.readVersions(conn, holes.keySet());
+
+                if (!late.isEmpty()) {
+                    late.forEach(event -> holes.remove(event.version()));
+                    publish(late);
+                    published += late.size();
+                }
+            }
+
+            while (true) {
+
+                List<ChangeEvent> fetched = ChangeLog.readAfter(conn, lastVersion, BATCH_SIZE);
+
+                if (!fetched.isEmpty()) {
+                    recordHoles(fetched);
+                    publish(fetched);
+                    lastVersion = fetched.get(fetched.size() - 1).version();
+                    published += fetched.size();
+                }
+
+                if (fetched.size() < BATCH_SIZE) {
+                    break;
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("An error Ocurred: " + e.getMessage());
+        }
+
+        expireHoles();
+
+        return published;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    // Additional
+
+    private void recordHoles(List<ChangeEvent> fetched) {
+
+        long now = System.nanoTime();
+        long expected = lastVersion + 1;
+
+        for (ChangeEvent event : fetched) {
+
+            long missing = event.version() - expected;
+
+            // A jump too large to track one by one is the only case where a committed change may be lost
+            if (holes.size() + missing > MAX_PENDING_HOLES) {
+                holesDropped = true;
+            } else {
+                for (long version = expected; version < event.version(); version++) {
+                    holes.put(version, now);
+                }
+            }
+
+            expected = event.version() + 1;
+        }
+    }
+
+    private void expireHoles() {
+
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Long, Long>> it = holes.entrySet().iterator();
+
+        // Holes are recorded in version order, so the oldest sit first
+        while (it.hasNext()) {
+
+            if (now - it.next().getValue() < HOLE_TIMEOUT_NANOS) {
+                break;
+            }
+
+            it.remove();
+        }
+
+        if (holesDropped) {
+            holesDropped = false;
+            LOG.warning("Change feed lost track of more than " + MAX_PENDING_HOLES + " pending versions; resetting subscribers");
+
+            for (Runnable listener : missedChangeListeners) {
+                try {
+                    listener.run();
+                } catch (RuntimeException e) {
+                    LOG.log(Level.WARNING, "Change feed listener failed", e);
+                }
+            }
+        }
+    }
+
+    private void publish(List<ChangeEvent> events) {
+
+        List<ChangeEvent> batch = List.copyOf(events);
+
+        for (Consumer<List<ChangeEvent>> subscriber : subscribers) {
+            try {
+                subscriber.accept(batch);
+            } catch (RuntimeException e) {
+                // One failing subscriber must not starve the others or stall the feed
+                LOG.log(Level.WARNING, "Change feed subscriber failed", e);
+            }
+        }
+    }
+
+    private void pollQuietly() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            LOG.log(Level.WARNING, "Failed to poll the change feed", e);
+        }
+    }
+
+    private static long latestVersion() {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return ChangeLog.latestVersion(conn);
+        } catch (SQLException e) {
+            throw new RuntimeException("An error Ocurred: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package pablo.tzeliks.infra;
+
+import pablo.tzeliks.domain.ChangeEvent;
+import pablo.tzeliks.infra.mapping.RowMapper;
+import pablo.tzeliks.infra.mapping.RowMappers;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+// Outbox writes and reads; appends always run on the caller's connection so they commit with the change itself.
+final class ChangeLog {
+
+    private static final int IN_CLAUSE_CHUNK_SIZE = 512;
+
+    private static final RowMapper<ChangeEvent> EVENT_MAPPER = RowMappers.of(ChangeEvent.class);
+
+    private ChangeLog() {
+    }
+
+    static void append(Connection conn, ChangeEvent.Entity entity, int entityId, ChangeEvent.Operation operation) throws SQLException {
+
+        String query = """
+                INSERT INTO change_log (entity, entity_id, operation)
+                VALUES (?, ?, ?);
+                """;
+
+        try (PreparedStatement ps = conn.prepareStatement(query)) {
+
+            ps.setString(1, entity.name());
+            ps.setInt(2, entityId);
+            ps.setString(3, operation.name());
+
+            ps.executeUpdate();
+        }
+    }
+
+    static void appendAll(Connection conn, ChangeEvent.Entity entity, Collection<Integer> entityIds, ChangeEvent.Operation operation) throws SQLException {
+
+        if (entityIds.isEmpty()) {
+            return;
+        }
+
+        String query = """
+                INSERT INTO change_log (entity, entity_id, operation)
+                VALUES (?, ?, ?);
+                """;
+
+        try (PreparedStatement ps = conn.prepareStatement(query)) {
+
+            for (int entityId : entityIds) {
+
+                ps.setString(1, entity.name());
+                ps.setInt(2, entityId);
+                ps.setString(3, operation.name());
+
+                ps.addBatch();
+            }
+
+            ps.executeBatch();
+        }
+    }
+
+    static List<ChangeEvent> readAfter(Connection conn, long afterVersion, int limit) throws SQLException {
+
+        String query = """
+                SELECT id AS version, entity, entity_id, operation, created_at
+                FROM change_log
+                WHERE id > ?
+                ORDER BY id
+                LIMIT ?;
+                """;
+
+        try (PreparedStatement ps = conn.prepareStatement(query)) {
+
+            ps.setLong(1, afterVersion);
+            ps.setInt(2, limit);
+
+            List<ChangeEvent> events = new ArrayList<>();
+
+            try (ResultSet rs = ps.executeQuery()) {
+                RowMapper<ChangeEvent> mapper = EVENT_MAPPER.bind(rs.getMetaData());
+
+                while (rs.next()) {
+                    events.add(mapper.map(rs));
+                }
+            }
+
+            return events;
+        }
+    }
+
+    // Rows for specific versions, e.g. ones that were missing from an earlier read
+    static List<ChangeEvent> readVersions(Connection conn, Collection<Long> versions) throws SQLException {
+
+        String query = """
+                SELECT id AS version, entity, entity_id, operation, created_at
+                FROM change_log
+                WHERE id IN (%s)
+                ORDER BY id;
+                """;
+
+        List<Long> all = new ArrayList<>(versions);
+        List<ChangeEvent> events = new ArrayList<>();
+
+        for (int start = 0; start < all.size(); start += IN_CLAUSE_CHUNK_SIZE) {
+
+            List<Long> chunk = all.subList(start, Math.min(start + IN_CLAUSE_CHUNK_SIZE, all.size()));
+
+            try (PreparedStatement ps = conn.prepareStatement(query.formatted(String.join(", ", Collections.nCopies(chunk.size(), "?"))))) {
+
+                for (int i = 0; i < chunk.size(); i++) {
+                    ps.setLong(i + 1, chunk.get(i));
+                }
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    RowMapper<ChangeEvent> mapper = EVENT_MAPPER.bind(rs.getMetaData());
+
+                    while (rs.next()) {
+                        events.add(mapper.map(rs));
+                    }
+                }
+            }
+        }
+
+        return events;
+    }
+
+    static long latestVersion(Connection conn) throws SQLException {
+
+        String query = """
+                SELECT COALESCE(MAX(id), 0)
+                FROM change_log;
+                """;
+
+        try (PreparedStatement ps = conn.prepareStatement(query);
+             ResultSet rs = ps.executeQuery()) {
+
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+}
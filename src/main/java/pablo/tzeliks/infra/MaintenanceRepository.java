@@ -1,12 +1,34 @@
 package pablo.tzeliks.infra;
 
 import pablo.tzeliks.domain.Maintenance;
+import pablo.tzeliks.domain.MaintenanceSummary;
+import pablo.tzeliks.domain.Page;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 
 public interface MaintenanceRepository {
 
     Maintenance save(int idVehicle, Maintenance maintenance);
 
+    // Inserts the maintenance and flags the vehicle as IN_MAINTANENCE atomically; null if the vehicle does not exist
+    Maintenance saveAndFlagVehicle(int idVehicle, Maintenance maintenance);
+
+    List<Maintenance> saveAll(int idVehicle, Collection<Maintenance> maintenances);
+
+    // Like saveAll, but every maintenance carries its own vehicleId
+    List<Maintenance> saveBatch(Collection<Maintenance> maintenances);
+
     BigDecimal calculateTotalCostsFromOneVehicle(int idVehicle);
+
+    // null when the vehicle has no maintenance yet
+    MaintenanceSummary findSummary(int idVehicle);
+
+    // Vehicles whose stored aggregate no longer matches their maintenance rows
+    List<Integer> verifySummaries();
+
+    int rebuildSummaries();
+
+    Page<Maintenance> findPageByVehicle(int idVehicle, int afterId, int limit);
 }
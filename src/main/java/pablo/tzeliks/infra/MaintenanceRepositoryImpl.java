@@ -1,13 +1,44 @@
 package pablo.tzeliks.infra;
 
+import pablo.tzeliks.domain.ChangeEvent;
 import pablo.tzeliks.domain.Maintenance;
+import pablo.tzeliks.domain.MaintenanceSummary;
+import pablo.tzeliks.domain.Page;
+import pablo.tzeliks.domain.VehicleStatus;
+import pablo.tzeliks.infra.mapping.RowMapper;
+import pablo.tzeliks.infra.mapping.RowMappers;
 import pablo.tzeliks.utils.DatabaseConnection;
 
 import java.math.BigDecimal;
 import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 public class MaintenanceRepositoryImpl implements MaintenanceRepository {
 
+    private static final RowMapper<Maintenance> MAINTENANCE_MAPPER = RowMappers.of(Maintenance.class);
+    private static final RowMapper<MaintenanceSummary> SUMMARY_MAPPER = RowMappers.of(MaintenanceSummary.class);
+
+    private final int batchSize;
+
+    public MaintenanceRepositoryImpl() {
+        this(DatabaseConnection.getConfig().getBatchSize());
+    }
+
+    public MaintenanceRepositoryImpl(int batchSize) {
+
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+
+        this.batchSize = batchSize;
+    }
+
     @Override
     public Maintenance save(int idVehicle, Maintenance maintenance) {
 
@@ -16,23 +47,100 @@ public class MaintenanceRepositoryImpl implements MaintenanceRepository {
                 VALUES (?, ?, ?, ?);
                 """;
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+        try (Connection conn = DatabaseConnection.getConnection()) {
 
-            ps.setInt(1, idVehicle);
-            ps.setString(2, maintenance.getDescription());
-            ps.setBigDecimal(3, maintenance.getCost());
-            ps.setDate(4, Date.valueOf(maintenance.getDate()));
+            conn.setAutoCommit(false);
 
-            ps.executeUpdate();
+            try (PreparedStatement ps = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+
+                ps.setInt(1, idVehicle);
+                ps.setString(2, maintenance.getDescription());
+                ps.setBigDecimal(3, maintenance.getCost());
+                ps.setDate(4, Date.valueOf(maintenance.getDate()));
+
+                ps.executeUpdate();
 
-            try (ResultSet rs = ps.getGeneratedKeys()) {
+                try (ResultSet rs = ps.getGeneratedKeys()) {
 
-                if (rs.next()) {
-                    maintenance.setId(rs.getInt(1));
+                    if (rs.next()) {
+                        maintenance.setId(rs.getInt(1));
+                    }
                 }
+
+                addToSummary(conn, idVehicle, maintenance.getCost(), 1, maintenance.getDate());
+
+                ChangeLog.append(conn, ChangeEvent.Entity.MAINTENANCE, maintenance.getId(), ChangeEvent.Operation.INSERT);
+
+                conn.commit();
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
             }
+        } catch (SQLException e) {
+            throw new RuntimeException("An error Occured: " + e.getMessage());
+        }
+
+        return maintenance;
+    }
+
+    @Override
+    public Maintenance saveAndFlagVehicle(int idVehicle, Maintenance maintenance) {
+
+        // Selecting from vehicle makes the insert itself the existence check: no row, no insert
+        String insert = """
+                INSERT INTO maintenance (vehicle_id, description, cost, date)
+                SELECT id, ?, ?, ?
+                FROM vehicle
+                WHERE id = ?;
+                """;
+
+        String updateStatus = """
+                UPDATE vehicle
+                SET status = ?, version = version + 1
+                WHERE id = ?;
+                """;
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement insertPs = conn.prepareStatement(insert, Statement.RETURN_GENERATED_KEYS);
+                 PreparedStatement updatePs = conn.prepareStatement(updateStatus)) {
+
+                insertPs.setString(1, maintenance.getDescription());
+                insertPs.setBigDecimal(2, maintenance.getCost());
+                insertPs.setDate(3, Date.valueOf(maintenance.getDate()));
+                insertPs.setInt(4, idVehicle);
+
+                if (insertPs.executeUpdate() == 0) {
+                    conn.rollback();
+                    return null;
+                }
+
+                try (ResultSet rs = insertPs.getGeneratedKeys()) {
+
+                    if (rs.next()) {
+                        maintenance.setId(rs.getInt(1));
+                        maintenance.setVehicleId(idVehicle);
+                    }
+                }
+
+                updatePs.setString(1, VehicleStatus.IN_MAINTANENCE.name());
+                updatePs.setInt(2, idVehicle);
+                updatePs.executeUpdate();
+
+                addToSummary(conn, idVehicle, maintenance.getCost(), 1, maintenance.getDate());
 
+                ChangeLog.append(conn, ChangeEvent.Entity.MAINTENANCE, maintenance.getId(), ChangeEvent.Operation.INSERT);
+                ChangeLog.append(conn, ChangeEvent.Entity.VEHICLE, idVehicle, ChangeEvent.Operation.UPDATE);
+
+                conn.commit();
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
         } catch (SQLException e) {
             throw new RuntimeException("An error Occured: " + e.getMessage());
         }
@@ -40,30 +148,277 @@ public class MaintenanceRepositoryImpl implements MaintenanceRepository {
         return maintenance;
     }
 
+    @Override
+    public List<Maintenance> saveAll(int idVehicle, Collection<Maintenance> maintenances) {
+
+        maintenances.forEach(maintenance -> maintenance.setVehicleId(idVehicle));
+
+        return saveBatch(maintenances);
+    }
+
+    @Override
+    public List<Maintenance> saveBatch(Collection<Maintenance> maintenances) {
+
+        List<Maintenance> saved = new ArrayList<>(maintenances);
+
+        if (saved.isEmpty()) {
+            return saved;
+        }
+
+        String query = """
+                INSERT INTO maintenance (vehicle_id, description, cost, date)
+                VALUES (?, ?, ?, ?);
+                """;
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement ps = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+
+                for (int start = 0; start < saved.size(); start += batchSize) {
+
+                    List<Maintenance> chunk = saved.subList(start, Math.min(start + batchSize, saved.size()));
+
+                    for (Maintenance maintenance : chunk) {
+
+                        ps.setInt(1, maintenance.getVehicleId());
+                        ps.setString(2, maintenance.getDescription());
+                        ps.setBigDecimal(3, maintenance.getCost());
+                        ps.setDate(4, Date.valueOf(maintenance.getDate()));
+
+                        ps.addBatch();
+                    }
+
+                    ps.executeBatch();
+
+                    // Keys come back in insertion order, one per batched row
+                    try (ResultSet rs = ps.getGeneratedKeys()) {
+
+                        for (Maintenance maintenance : chunk) {
+
+                            if (rs.next()) {
+                                maintenance.setId(rs.getInt(1));
+                            }
+                        }
+                    }
+                }
+
+                Map<Integer, List<Maintenance>> byVehicle = saved.stream()
+                        .collect(Collectors.groupingBy(Maintenance::getVehicleId, LinkedHashMap::new, Collectors.toList()));
+
+                for (Map.Entry<Integer, List<Maintenance>> group : byVehicle.entrySet()) {
+
+                    BigDecimal total = BigDecimal.ZERO;
+                    LocalDate lastDate = null;
+
+                    for (Maintenance maintenance : group.getValue()) {
+
+                        total = total.add(maintenance.getCost());
+
+                        if (lastDate == null || maintenance.getDate().isAfter(lastDate)) {
+                            lastDate = maintenance.getDate();
+                        }
+                    }
+
+                    addToSummary(conn, group.getKey(), total, group.getValue().size(), lastDate);
+                }
+
+                ChangeLog.appendAll(conn, ChangeEvent.Entity.MAINTENANCE,
+                        saved.stream().map(Maintenance::getId).toList(), ChangeEvent.Operation.INSERT);
+
+                conn.commit();
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("An error Occured: " + e.getMessage());
+        }
+
+        return saved;
+    }
+
     @Override
     public BigDecimal calculateTotalCostsFromOneVehicle(int idVehicle) {
 
+        MaintenanceSummary summary = findSummary(idVehicle);
+
+        return summary == null ? BigDecimal.ZERO : summary.totalCost();
+    }
+
+    // Single primary-key lookup on the aggregate kept up to date by every insert
+    @Override
+    public MaintenanceSummary findSummary(int idVehicle) {
+
         String query = """
-                SELECT COALESCE(SUM(cost), 0) as total
-                FROM maintenance
+                SELECT vehicle_id, total_cost, maintenance_count, last_maintenance_date
+                FROM vehicle_maintenance_summary
                 WHERE vehicle_id = ?;
                 """;
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement ps = conn.prepareStatement(query)) {
 
             ps.setInt(1, idVehicle);
 
             try (var rs = ps.executeQuery()) {
-                if (rs.next()) {
 
-                    return rs.getBigDecimal("total");
-                }
+                return rs.next() ? SUMMARY_MAPPER.map(rs) : null;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("An error Ocurred: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public List<Integer> verifySummaries() {
+
+        // MySQL has no FULL OUTER JOIN: stale or missing rows first, then orphaned summaries
+        String query = """
+                SELECT a.vehicle_id
+                FROM (SELECT vehicle_id, SUM(cost) AS total, COUNT(*) AS cnt, MAX(date) AS last_date
+                      FROM maintenance
+                      GROUP BY vehicle_id) a
+                LEFT JOIN vehicle_maintenance_summary s ON s.vehicle_id = a.vehicle_id
+                WHERE s.vehicle_id IS NULL
+                   OR s.total_cost <> a.total
+                   OR s.maintenance_count <> a.cnt
+                   OR NOT (s.last_maintenance_date <=> a.last_date)
+                UNION
+                SELECT s.vehicle_id
+                FROM vehicle_maintenance_summary s
+                WHERE NOT EXISTS (SELECT 1 FROM maintenance m WHERE m.vehicle_id = s.vehicle_id);
+                """;
+
+        List<Integer> drifted = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query);
+             var rs = ps.executeQuery()) {
+
+            while (rs.next()) {
+                drifted.add(rs.getInt(1));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("An error Ocurred: " + e.getMessage());
+        }
+
+        return drifted;
+    }
+
+    @Override
+    public int rebuildSummaries() {
+
+        String delete = """
+                DELETE FROM vehicle_maintenance_summary;
+                """;
+
+        String rebuild = """
+                INSERT INTO vehicle_maintenance_summary
+                (vehicle_id, total_cost, maintenance_count, last_maintenance_date)
+                SELECT vehicle_id, SUM(cost), COUNT(*), MAX(date)
+                FROM maintenance
+                GROUP BY vehicle_id;
+                """;
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
 
-                return null;
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement deletePs = conn.prepareStatement(delete);
+                 PreparedStatement rebuildPs = conn.prepareStatement(rebuild)) {
+
+                deletePs.executeUpdate();
+                int rebuilt = rebuildPs.executeUpdate();
+
+                conn.commit();
+
+                return rebuilt;
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("An error Ocurred: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Page<Maintenance> findPageByVehicle(int idVehicle, int afterId, int limit) {
+
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be positive: " + limit);
+        }
+
+        // Served by the (vehicle_id, id) ordering of the foreign key index
+        String query = """
+                SELECT *
+                FROM maintenance
+                WHERE vehicle_id = ? AND id > ?
+                ORDER BY id
+                LIMIT ?;
+                """;
+
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+
+            ps.setInt(1, idVehicle);
+            ps.setInt(2, afterId);
+            ps.setInt(3, limit + 1);
+
+            List<Maintenance> maintenances = new ArrayList<>(limit);
+            boolean hasNext = false;
+
+            try (ResultSet rs = ps.executeQuery()) {
+                RowMapper<Maintenance> mapper = MAINTENANCE_MAPPER.bind(rs.getMetaData());
+
+                while (rs.next()) {
+
+                    if (maintenances.size() == limit) {
+                        hasNext = true;
+                        break;
+                    }
+
+                    maintenances.add(mapper.map(rs));
+                }
             }
+
+            Integer nextCursor = hasNext ? maintenances.get(maintenances.size() - 1).getId() : null;
+
+            return new Page<>(maintenances, nextCursor);
+
         } catch (SQLException e) {
             throw new RuntimeException("An error Ocurred: " + e.getMessage());
         }
     }
+
+    // Additional
+
+    // Runs on the caller's connection so the aggregate commits or rolls back with the insert
+    private static void addToSummary(Connection conn, int idVehicle, BigDecimal cost, int count, LocalDate date) throws SQLException {
+
+        String upsert = """
+                INSERT INTO vehicle_maintenance_summary
+                (vehicle_id, total_cost, maintenance_count, last_maintenance_date)
+                VALUES (?, ?, ?, ?)
+                ON DUPLICATE KEY UPDATE
+                total_cost = total_cost + VALUES(total_cost),
+                maintenance_count = maintenance_count + VALUES(maintenance_count),
+                last_maintenance_date = GREATEST(COALESCE(last_maintenance_date, VALUES(last_maintenance_date)),
+                                                 VALUES(last_maintenance_date));
+                """;
+
+        try (PreparedStatement ps = conn.prepareStatement(upsert)) {
+
+            ps.setInt(1, idVehicle);
+            ps.setBigDecimal(2, cost);
+            ps.setInt(3, count);
+            ps.setDate(4, Date.valueOf(date));
+
+            ps.executeUpdate();
+        }
+    }
 }
@@ -0,0 +1,180 @@
+package pablo.tzeliks.infra;
+
+import pablo.tzeliks.domain.Maintenance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+// Optional write-behind mode for maintenance inserts: submissions are queued and a background thread
+// group-commits them with saveBatch every maxBatchSize records or flushInterval, whichever comes first.
+public class MaintenanceWriteBehindBuffer implements AutoCloseable {
+
+    private record Pending(Maintenance maintenance, CompletableFuture<Maintenance> future) {
+    }
+
+    private final MaintenanceRepository maintenanceRepository;
+    private final BlockingQueue<Pending> queue;
+    private final int maxBatchSize;
+    private final long flushIntervalNanos;
+    private final Thread flusher;
+
+    private volatile boolean closed;
+
+    public MaintenanceWriteBehindBuffer(MaintenanceRepository maintenanceRepository,
+                                        int capacity, int maxBatchSize, long flushIntervalMillis) {
+
+        if (capacity <= 0 || maxBatchSize <= 0 || flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Capacity, batch size and flush interval must be positive");
+        }
+
+        this.maintenanceRepository = maintenanceRepository;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatchSize = maxBatchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+
+        this.flusher = new Thread(this::runFlusher, "maintenance-write-behind");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    // Blocks while the queue is full; the future completes with the generated id once committed
+    public CompletableFuture<Maintenance> submit(int idVehicle, Maintenance maintenance) throws InterruptedException {
+
+        Pending pending = enqueueCheck(idVehicle, maintenance);
+        queue.put(pending);
+
+        return afterEnqueue(pending);
+    }
+
+    // Gives up after the timeout instead of blocking indefinitely when the flusher cannot keep up
+    public CompletableFuture<Maintenance> submit(int idVehicle, Maintenance maintenance, long timeout, TimeUnit unit)
+            throws InterruptedException {
+
+        Pending pending = enqueueCheck(idVehicle, maintenance);
+
+        if (!queue.offer(pending, timeout, unit)) {
+            throw new RejectedExecutionException("Write-behind queue is full");
+        }
+
+        return afterEnqueue(pending);
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    // Stops accepting work and returns once everything already queued has been written.
+    // The flusher is not interrupted, since that could tear down a connection mid-batch;
+    // it notices the flag within one flush interval.
+    @Override
+    public void close() {
+        closed = true;
+
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Anything that slipped in while the flusher was finishing
+        List<Pending> leftovers = new ArrayList<>();
+        queue.drainTo(leftovers);
+
+        if (!leftovers.isEmpty()) {
+            flush(leftovers);
+        }
+    }
+
+    // Additional
+
+    private Pending enqueueCheck(int idVehicle, Maintenance maintenance) {
+
+        if (closed) {
+            throw new RejectedExecutionException("Write-behind buffer is closed");
+        }
+
+        maintenance.setVehicleId(idVehicle);
+
+        return new Pending(maintenance, new CompletableFuture<>());
+    }
+
+    private CompletableFuture<Maintenance> afterEnqueue(Pending pending) {
+
+        // close() may already have drained the queue; take the entry back rather than strand it
+        if (closed && queue.remove(pending)) {
+            throw new RejectedExecutionException("Write-behind buffer is closed");
+        }
+
+        return pending.future();
+    }
+
+    private void runFlusher() {
+
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+
+        while (!closed || !queue.isEmpty()) {
+
+            try {
+                Pending first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+
+                // Group commit: keep collecting until the batch is full or the interval has passed
+                while (batch.size() < maxBatchSize) {
+
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+
+                    long remaining = deadline - System.nanoTime();
+
+                    if (batch.size() >= maxBatchSize || remaining <= 0 || closed) {
+                        break;
+                    }
+
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Nobody owns this thread but us; treat an interrupt like a close request
+                closed = true;
+            }
+
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch = new ArrayList<>(maxBatchSize);
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+
+        try {
+            maintenanceRepository.saveBatch(batch.stream().map(Pending::maintenance).toList());
+            batch.forEach(pending -> pending.future().complete(pending.maintenance()));
+
+        } catch (RuntimeException batchFailure) {
+
+            // One bad row (e.g. an unknown vehicle) must not fail the whole group, so retry one by one
+            for (Pending pending : batch) {
+                try {
+                    Maintenance maintenance = pending.maintenance();
+                    pending.future().complete(maintenanceRepository.save(maintenance.getVehicleId(), maintenance));
+                } catch (RuntimeException e) {
+                    pending.future().completeExceptionally(e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package pablo.tzeliks.infra;
+
+import pablo.tzeliks.infra.mapping.RowMapper;
+import pablo.tzeliks.utils.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Exposes an open cursor as a lazy Stream; the connection lives until the stream is closed.
+final class ResultSetStream {
+
+    private ResultSetStream() {
+    }
+
+    // Integer.MIN_VALUE streams row by row; the analytics profile uses a positive size with a server-side cursor
+    static int streamingFetchSize() {
+        return DatabaseConnection.getConfig().getStreamingFetchSize();
+    }
+
+    static <T> Stream<T> of(Connection conn, PreparedStatement ps, RowMapper<T> mapper) throws SQLException {
+
+        ResultSet rs;
+
+        try {
+            rs = ps.executeQuery();
+        } catch (SQLException e) {
+            closeQuietly(ps, conn);
+            throw e;
+        }
+
+        // Column layout resolved once for the whole stream
+        RowMapper<T> bound;
+
+        try {
+            bound = mapper.bind(rs.getMetaData());
+        } catch (SQLException e) {
+            closeQuietly(rs, ps, conn);
+            throw e;
+        }
+
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!rs.next()) {
+                        return false;
+                    }
+
+                    action.accept(bound.map(rs));
+                    return true;
+
+                } catch (SQLException e) {
+                    throw new RuntimeException("An error Ocurred: " + e.getMessage());
+                }
+            }
+        };
+
+        return StreamSupport.stream(spliterator, false)
+                .onClose(() -> closeQuietly(rs, ps, conn));
+    }
+
+    static void closeQuietly(AutoCloseable... resources) {
+        for (AutoCloseable resource : resources) {
+            try {
+                if (resource != null) {
+                    resource.close();
+                }
+            } catch (Exception ignored) {
+                // Keep closing the remaining resources
+            }
+        }
+    }
+}
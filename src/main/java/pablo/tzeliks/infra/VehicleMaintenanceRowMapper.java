@@ -0,0 +1,78 @@
+package pablo.tzeliks.infra;
+
+import pablo.tzeliks.domain.Maintenance;
+import pablo.tzeliks.domain.Vehicle;
+import pablo.tzeliks.infra.mapping.RowMapper;
+import pablo.tzeliks.infra.mapping.RowMappers;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+// Maps the vehicle LEFT JOIN maintenance rows; column positions are resolved once per ResultSet.
+final class VehicleMaintenanceRowMapper {
+
+    // A fleet has a few dozen models, so mapped rows share one String per model
+    private static final RowMapper<Vehicle> VEHICLE_MAPPER = RowMappers.of(Vehicle.class, "model");
+
+    private final RowMapper<Vehicle> vehicleMapper;
+    private final int vehicleId;
+
+    private final int maintenanceId;
+    private final int description;
+    private final int cost;
+    private final int date;
+
+    VehicleMaintenanceRowMapper(ResultSetMetaData metaData) throws SQLException {
+        this.vehicleMapper = VEHICLE_MAPPER.bind(metaData);
+        this.vehicleId = indexOf(metaData, "id");
+
+        this.maintenanceId = indexOf(metaData, "m_id");
+        this.description = indexOf(metaData, "description");
+        this.cost = indexOf(metaData, "cost");
+        this.date = indexOf(metaData, "date");
+    }
+
+    int vehicleId(ResultSet rs) throws SQLException {
+        return rs.getInt(vehicleId);
+    }
+
+    // The vehicle columns come first in the select list, so "id" binds to the vehicle and not to m_id
+    Vehicle mapVehicle(ResultSet rs) throws SQLException {
+        return vehicleMapper.map(rs);
+    }
+
+    // Returns null for the all-NULL maintenance side of a vehicle without history
+    Maintenance mapMaintenance(ResultSet rs, int idVehicle) throws SQLException {
+
+        int idMaintenance = rs.getInt(maintenanceId);
+
+        if (rs.wasNull()) {
+            return null;
+        }
+
+        Date maintenanceDate = rs.getDate(date);
+
+        return new Maintenance(
+                idMaintenance,
+                idVehicle,
+                rs.getString(description),
+                rs.getBigDecimal(cost),
+                maintenanceDate.toLocalDate()
+        );
+    }
+
+    // First match wins, so "id" resolves to the vehicle id that comes before m_id in the select list
+    private static int indexOf(ResultSetMetaData metaData, String label) throws SQLException {
+
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+
+            if (label.equalsIgnoreCase(metaData.getColumnLabel(i))) {
+                return i;
+            }
+        }
+
+        throw new SQLException("Column not found in result: " + label);
+    }
+}
@@ -1,18 +1,33 @@
 package pablo.tzeliks.infra;
 
+import pablo.tzeliks.domain.Page;
 import pablo.tzeliks.domain.Vehicle;
 import pablo.tzeliks.domain.VehicleStatus;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 public interface VehicleRepository {
 
     Vehicle save(Vehicle vehicle);
 
+    List<Vehicle> saveAll(Collection<Vehicle> vehicles);
+
     Vehicle findById(int id);
 
+    // Missing ids are simply absent from the map
+    Map<Integer, Vehicle> findByIds(Collection<Integer> ids);
+
     List<Vehicle> findAll();
 
+    // Callers must close the stream (try-with-resources) to release the connection
+    Stream<Vehicle> streamAll();
+
+    // status is optional; pass null to list every vehicle
+    Page<Vehicle> findPage(int afterId, int limit, VehicleStatus status);
+
     Vehicle update(Vehicle newVehicle);
 
     void delete(int id);
@@ -23,5 +38,17 @@ public interface VehicleRepository {
 
     boolean updateStatus(int id, VehicleStatus newStatus);
 
+    int updateStatus(Collection<Integer> ids, VehicleStatus newStatus);
+
+    int updateStatusBulk(Map<Integer, VehicleStatus> newStatuses);
+
+    Vehicle saveOrUpdate(Vehicle vehicle);
+
     Vehicle findAllMaintenances(int id);
+
+    Map<Integer, Vehicle> findAllMaintenances(Collection<Integer> ids);
+
+    // Lets decorators that hold vehicle state drop it after another repository changed the row
+    default void invalidate(int id) {
+    }
 }
\ No newline at end of file
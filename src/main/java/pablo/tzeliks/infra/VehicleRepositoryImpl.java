@@ -1,16 +1,53 @@
 package pablo.tzeliks.infra;
 
+import pablo.tzeliks.domain.ChangeEvent;
 import pablo.tzeliks.domain.Maintenance;
+import pablo.tzeliks.domain.Page;
 import pablo.tzeliks.domain.Vehicle;
 import pablo.tzeliks.domain.VehicleStatus;
+import pablo.tzeliks.exception.DuplicatePlateException;
+import pablo.tzeliks.exception.OptimisticLockException;
+import pablo.tzeliks.infra.mapping.RowMapper;
+import pablo.tzeliks.infra.mapping.RowMappers;
 import pablo.tzeliks.utils.DatabaseConnection;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 public class VehicleRepositoryImpl implements VehicleRepository {
 
+    private static final int IN_CLAUSE_CHUNK_SIZE = 512;
+
+    private static final String INTEGRITY_VIOLATION_STATE = "23000";
+    private static final int MYSQL_DUPLICATE_ENTRY = 1062;
+
+    // A fleet has a few dozen models, so mapped rows share one String per model
+    private static final RowMapper<Vehicle> VEHICLE_MAPPER = RowMappers.of(Vehicle.class, "model");
+
+    private final int batchSize;
+
+    public VehicleRepositoryImpl() {
+        // Batch size follows the active profile, e.g. larger batches under BULK_IMPORT
+        this(DatabaseConnection.getConfig().getBatchSize());
+    }
+
+    public VehicleRepositoryImpl(int batchSize) {
+
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+
+        this.batchSize = batchSize;
+    }
+
     @Override
     public Vehicle save(Vehicle vehicle) {
 
@@ -20,22 +57,167 @@ public class VehicleRepositoryImpl implements VehicleRepository {
         VALUES (?, ?, ?, ?);
         """;
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+        try (Connection conn = DatabaseConnection.getConnection()) {
 
-            ps.setString(1, vehicle.getLicensePlate());
-            ps.setString(2, vehicle.getModel());
-            ps.setDate(3, Date.valueOf(vehicle.getManufacturingDate()));
-            ps.setString(4, String.valueOf(vehicle.getStatus()));
+            conn.setAutoCommit(false);
 
-            ps.execute();
+            try (PreparedStatement ps = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
 
-            try (var rs = ps.getGeneratedKeys()) {
+                ps.setString(1, vehicle.getLicensePlate());
+                ps.setString(2, vehicle.getModel());
+                ps.setDate(3, Date.valueOf(vehicle.getManufacturingDate()));
+                ps.setString(4, String.valueOf(vehicle.getStatus()));
 
-                if (rs.next()) {
+                ps.execute();
+
+                try (var rs = ps.getGeneratedKeys()) {
+
+                    if (rs.next()) {
+
+                        vehicle.setId(rs.getInt(1));
+                    }
+                }
+
+                ChangeLog.append(conn, ChangeEvent.Entity.VEHICLE, vehicle.getId(), ChangeEvent.Operation.INSERT);
+
+                conn.commit();
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            if (isDuplicateKey(e)) {
+                throw new DuplicatePlateException(vehicle.getLicensePlate(), e);
+            }
+
+            throw new RuntimeException("An error Ocurred: " + e.getMessage());
+        }
+
+        return vehicle;
+    }
+
+    @Override
+    public List<Vehicle> saveAll(Collection<Vehicle> vehicles) {
+
+        List<Vehicle> saved = new ArrayList<>(vehicles);
+
+        if (saved.isEmpty()) {
+            return saved;
+        }
+
+        String query = """
+        INSERT INTO vehicle
+        (license_plate, model, manufacturing_date, status)
+        VALUES (?, ?, ?, ?);
+        """;
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement ps = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+
+                for (int start = 0; start < saved.size(); start += batchSize) {
+
+                    List<Vehicle> chunk = saved.subList(start, Math.min(start + batchSize, saved.size()));
+
+                    for (Vehicle vehicle : chunk) {
+
+                        ps.setString(1, vehicle.getLicensePlate());
+                        ps.setString(2, vehicle.getModel());
+                        ps.setDate(3, Date.valueOf(vehicle.getManufacturingDate()));
+                        ps.setString(4, String.valueOf(vehicle.getStatus()));
+
+                        ps.addBatch();
+                    }
+
+                    ps.executeBatch();
+
+                    // Keys come back in insertion order, one per batched row
+                    try (var rs = ps.getGeneratedKeys()) {
+
+                        for (Vehicle vehicle : chunk) {
+
+                            if (rs.next()) {
+
+                                vehicle.setId(rs.getInt(1));
+                            }
+                        }
+                    }
+                }
+
+                ChangeLog.appendAll(conn, ChangeEvent.Entity.VEHICLE,
+                        saved.stream().map(Vehicle::getId).toList(), ChangeEvent.Operation.INSERT);
+
+                conn.commit();
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            if (isDuplicateKey(e)) {
+                throw new DuplicatePlateException(null, e);
+            }
+
+            throw new RuntimeException("An error Ocurred: " + e.getMessage());
+        }
+
+        return saved;
+    }
+
+    // Upsert on the license_plate unique key; LAST_INSERT_ID(id) makes the existing id come back as the generated key
+    @Override
+    public Vehicle saveOrUpdate(Vehicle vehicle) {
+
+        String query = """
+        INSERT INTO vehicle
+        (license_plate, model, manufacturing_date, status)
+        VALUES (?, ?, ?, ?)
+        ON DUPLICATE KEY UPDATE
+        id = LAST_INSERT_ID(id),
+        model = VALUES(model),
+        manufacturing_date = VALUES(manufacturing_date),
+        status = VALUES(status),
+        version = version + 1;
+        """;
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement ps = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+
+                ps.setString(1, vehicle.getLicensePlate());
+                ps.setString(2, vehicle.getModel());
+                ps.setDate(3, Date.valueOf(vehicle.getManufacturingDate()));
+                ps.setString(4, String.valueOf(vehicle.getStatus()));
+
+                // MySQL reports 1 for an insert and 2 for an update; the version bump means an existing row always changes
+                int affected = ps.executeUpdate();
+
+                try (var rs = ps.getGeneratedKeys()) {
 
-                    vehicle.setId(rs.getInt(1));
+                    if (rs.next()) {
+
+                        vehicle.setId(rs.getInt(1));
+                    }
+                }
+
+                // An existing row had its version bumped; read it back so an update right after the upsert is not a conflict
+                vehicle.setVersion(affected == 1 ? 0 : findVersion(conn, vehicle.getId()));
+
+                if (affected > 0) {
+                    ChangeLog.append(conn, ChangeEvent.Entity.VEHICLE, vehicle.getId(),
+                            affected == 1 ? ChangeEvent.Operation.INSERT : ChangeEvent.Operation.UPDATE);
                 }
+
+                conn.commit();
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
             }
         } catch (SQLException e) {
             throw new RuntimeException("An error Ocurred: " + e.getMessage());
@@ -53,7 +235,7 @@ public class VehicleRepositoryImpl implements VehicleRepository {
                 WHERE license_plate = ?;
                 """;
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement ps = conn.prepareStatement(query)) {
 
             ps.setString(1, licensePlate);
@@ -82,7 +264,7 @@ public class VehicleRepositoryImpl implements VehicleRepository {
                 WHERE id = ?;
                 """;
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement ps = conn.prepareStatement(query)) {
 
             ps.setInt(1, id);
@@ -91,13 +273,7 @@ public class VehicleRepositoryImpl implements VehicleRepository {
 
                 if (rs.next()) {
 
-                    return new Vehicle(
-                            id,
-                            rs.getString(2),
-                            rs.getString(3),
-                            rs.getDate(4).toLocalDate(),
-                            VehicleStatus.valueOf(rs.getString(5))
-                    );
+                    return VEHICLE_MAPPER.map(rs);
                 }
             }
         } catch (SQLException e) {
@@ -107,6 +283,43 @@ public class VehicleRepositoryImpl implements VehicleRepository {
         return null;
     }
 
+    @Override
+    public Map<Integer, Vehicle> findByIds(Collection<Integer> ids) {
+
+        Map<Integer, Vehicle> vehicles = new LinkedHashMap<>();
+
+        String query = """
+                SELECT *
+                FROM vehicle
+                WHERE id IN (%s);
+                """;
+
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
+
+            for (List<Integer> chunk : chunkIds(ids)) {
+
+                try (PreparedStatement ps = conn.prepareStatement(query.formatted(placeholders(chunk.size())))) {
+
+                    bindIds(ps, chunk);
+
+                    try (var rs = ps.executeQuery()) {
+                        RowMapper<Vehicle> mapper = VEHICLE_MAPPER.bind(rs.getMetaData());
+
+                        while (rs.next()) {
+
+                            Vehicle vehicle = mapper.map(rs);
+                            vehicles.put(vehicle.getId(), vehicle);
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("An error Ocurred: " + e.getMessage());
+        }
+
+        return vehicles;
+    }
+
     @Override
     public List<Vehicle> findAll() {
 
@@ -117,16 +330,15 @@ public class VehicleRepositoryImpl implements VehicleRepository {
                 FROM vehicle;
                 """;
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement ps = conn.prepareStatement(query)) {
 
             try (var rs = ps.executeQuery()) {
+                RowMapper<Vehicle> mapper = VEHICLE_MAPPER.bind(rs.getMetaData());
 
                 while (rs.next()) {
 
-                    vehicles.add(
-                            Vehicle.mapRow(rs)
-                    );
+                    vehicles.add(mapper.map(rs));
                 }
             }
         } catch (SQLException e) {
@@ -136,32 +348,148 @@ public class VehicleRepositoryImpl implements VehicleRepository {
         return vehicles;
     }
 
+    @Override
+    public Stream<Vehicle> streamAll() {
+
+        String query = """
+                SELECT *
+                FROM vehicle;
+                """;
+
+        Connection conn = DatabaseConnection.getReadConnection();
+        PreparedStatement ps = null;
+
+        try {
+            ps = conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(ResultSetStream.streamingFetchSize());
+
+            return ResultSetStream.of(conn, ps, VEHICLE_MAPPER);
+
+        } catch (SQLException e) {
+            ResultSetStream.closeQuietly(ps, conn);
+
+            throw new RuntimeException("An error Ocurred: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Page<Vehicle> findPage(int afterId, int limit, VehicleStatus status) {
+
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be positive: " + limit);
+        }
+
+        // Seeking past the last id keeps deep pages as cheap as the first one, unlike OFFSET
+        String query = status == null
+                ? """
+                SELECT *
+                FROM vehicle
+                WHERE id > ?
+                ORDER BY id
+                LIMIT ?;
+                """
+                : """
+                SELECT *
+                FROM vehicle
+                WHERE id > ? AND status = ?
+                ORDER BY id
+                LIMIT ?;
+                """;
+
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+
+            int index = 1;
+            ps.setInt(index++, afterId);
+
+            if (status != null) {
+                ps.setString(index++, status.name());
+            }
+
+            // One extra row tells us whether another page exists
+            ps.setInt(index, limit + 1);
+
+            List<Vehicle> vehicles = new ArrayList<>(limit);
+            boolean hasNext = false;
+
+            try (var rs = ps.executeQuery()) {
+                RowMapper<Vehicle> mapper = VEHICLE_MAPPER.bind(rs.getMetaData());
+
+                while (rs.next()) {
+
+                    if (vehicles.size() == limit) {
+                        hasNext = true;
+                        break;
+                    }
+
+                    vehicles.add(mapper.map(rs));
+                }
+            }
+
+            Integer nextCursor = hasNext ? vehicles.get(vehicles.size() - 1).getId() : null;
+
+            return new Page<>(vehicles, nextCursor);
+
+        } catch (SQLException e) {
+            throw new RuntimeException("An error Ocurred: " + e.getMessage());
+        }
+    }
+
+    // Compare-and-set on the version read with the vehicle: no lock is held between reading and writing
     @Override
     public Vehicle update(Vehicle newVehicle) {
 
         String query = """
                 UPDATE vehicle
-                SET license_plate = ?, model = ?, manufacturing_date = ?, status = ?
-                WHERE id = ?;
+                SET license_plate = ?, model = ?, manufacturing_date = ?, status = ?, version = version + 1
+                WHERE id = ? AND version = ?;
                 """;
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(query)) {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement ps = conn.prepareStatement(query)) {
+
+                ps.setString(1, newVehicle.getLicensePlate());
+                ps.setString(2, newVehicle.getModel());
+                ps.setDate(3, Date.valueOf(newVehicle.getManufacturingDate()));
+                ps.setString(4, String.valueOf(newVehicle.getStatus()));
+
+                ps.setInt(5, newVehicle.getId());
+                ps.setInt(6, newVehicle.getVersion());
+
+                int num = ps.executeUpdate();
+                Integer currentVersion = null;
 
-            ps.setString(1, newVehicle.getLicensePlate());
-            ps.setString(2, newVehicle.getModel());
-            ps.setDate(3, Date.valueOf(newVehicle.getManufacturingDate()));
-            ps.setString(4, String.valueOf(newVehicle.getStatus()));
+                if (num > 0) {
+                    ChangeLog.append(conn, ChangeEvent.Entity.VEHICLE, newVehicle.getId(), ChangeEvent.Operation.UPDATE);
+                } else {
+                    // No match is either a missing vehicle or a stale version; only the latter is a conflict
+                    currentVersion = findVersion(conn, newVehicle.getId());
+                }
 
-            ps.setInt(5, newVehicle.getId());
+                conn.commit();
 
-            int num = ps.executeUpdate();
+                if (num > 0) {
 
-            if (num > 0) {
+                    newVehicle.setVersion(newVehicle.getVersion() + 1);
+                    return newVehicle;
+                }
 
-                return newVehicle;
+                if (currentVersion != null) {
+                    throw new OptimisticLockException(newVehicle.getId(), newVehicle.getVersion(), currentVersion);
+                }
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
             }
         } catch (SQLException e) {
+            if (isDuplicateKey(e)) {
+                throw new DuplicatePlateException(newVehicle.getLicensePlate(), e);
+            }
+
             throw new RuntimeException("An error Ocurred: " + e.getMessage());
         }
 
@@ -175,12 +503,24 @@ public class VehicleRepositoryImpl implements VehicleRepository {
                 WHERE id = ?;
                 """;
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(query)) {
+        try (Connection conn = DatabaseConnection.getConnection()) {
 
-            ps.setInt(1, id);
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement ps = conn.prepareStatement(query)) {
 
-            ps.executeUpdate();
+                ps.setInt(1, id);
+
+                if (ps.executeUpdate() > 0) {
+                    ChangeLog.append(conn, ChangeEvent.Entity.VEHICLE, id, ChangeEvent.Operation.DELETE);
+                }
+
+                conn.commit();
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
         } catch (SQLException e) {
             throw new RuntimeException("An error Ocurred: " + e.getMessage());
         }
@@ -191,23 +531,100 @@ public class VehicleRepositoryImpl implements VehicleRepository {
 
         String query = """
                 UPDATE vehicle
-                SET status = ?
+                SET status = ?, version = version + 1
                 WHERE id = ?;
                 """;
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(query)) {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+
+            conn.setAutoCommit(false);
 
-            ps.setString(1, newStatus.name());
-            ps.setInt(2, idVehicle);
+            try (PreparedStatement ps = conn.prepareStatement(query)) {
 
-            int correct = ps.executeUpdate();
+                ps.setString(1, newStatus.name());
+                ps.setInt(2, idVehicle);
 
-            return correct > 0;
+                int correct = ps.executeUpdate();
+
+                if (correct > 0) {
+                    ChangeLog.append(conn, ChangeEvent.Entity.VEHICLE, idVehicle, ChangeEvent.Operation.UPDATE);
+                }
 
+                conn.commit();
+
+                return correct > 0;
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("An error Ocurred: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public int updateStatus(Collection<Integer> ids, VehicleStatus newStatus) {
+
+        return updateStatusBulk(ids.stream().collect(
+                LinkedHashMap::new, (statuses, id) -> statuses.put(id, newStatus), Map::putAll));
+    }
+
+    // One set-based UPDATE per target status (and IN chunk), all inside a single transaction
+    @Override
+    public int updateStatusBulk(Map<Integer, VehicleStatus> newStatuses) {
+
+        if (newStatuses.isEmpty()) {
+            return 0;
+        }
+
+        Map<VehicleStatus, List<Integer>> byStatus = new EnumMap<>(VehicleStatus.class);
+        newStatuses.forEach((id, status) -> byStatus.computeIfAbsent(status, s -> new ArrayList<>()).add(id));
+
+        String query = """
+                UPDATE vehicle
+                SET status = ?, version = version + 1
+                WHERE id IN (%s);
+                """;
+
+        int updated = 0;
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+
+            conn.setAutoCommit(false);
+
+            try {
+                for (Map.Entry<VehicleStatus, List<Integer>> group : byStatus.entrySet()) {
+
+                    for (List<Integer> chunk : chunkIds(group.getValue())) {
+
+                        try (PreparedStatement ps = conn.prepareStatement(query.formatted(placeholders(chunk.size())))) {
+
+                            ps.setString(1, group.getKey().name());
+
+                            for (int i = 0; i < chunk.size(); i++) {
+                                ps.setInt(i + 2, chunk.get(i));
+                            }
+
+                            updated += ps.executeUpdate();
+                        }
+                    }
+                }
+
+                // Ids that matched no row are recorded too; subscribers treat an update of a missing vehicle as a no-op
+                ChangeLog.appendAll(conn, ChangeEvent.Entity.VEHICLE, newStatuses.keySet(), ChangeEvent.Operation.UPDATE);
+
+                conn.commit();
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
         } catch (SQLException e) {
             throw new RuntimeException("An error Ocurred: " + e.getMessage());
         }
+
+        return updated;
     }
 
     @Override
@@ -218,29 +635,29 @@ public class VehicleRepositoryImpl implements VehicleRepository {
                 m.id as m_id, m.vehicle_id, m.description, m.cost, m.date
                 FROM vehicle v
                 LEFT JOIN maintenance m ON v.id = m.vehicle_id
-                WHERE v.id = ?;
+                WHERE v.id = ?
+                ORDER BY m.id;
                 """;
 
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement ps = conn.prepareStatement(query)) {
 
             ps.setInt(1, idVehicle);
 
             try (var rs = ps.executeQuery()) {
+                VehicleMaintenanceRowMapper mapper = new VehicleMaintenanceRowMapper(rs.getMetaData());
                 Vehicle dbVehicle = null;
 
                 while (rs.next()) {
 
                     if (dbVehicle == null) {
 
-                        dbVehicle = Vehicle.mapRow(rs);
+                        dbVehicle = mapper.mapVehicle(rs);
                     }
 
-                    int idMaintenance = rs.getInt("m_id");
-
-                    if (idMaintenance > 0) {
+                    Maintenance dbMaintenance = mapper.mapMaintenance(rs, idVehicle);
 
-                        Maintenance dbMaintenance = Maintenance.mapRow(rs);
+                    if (dbMaintenance != null) {
 
                         dbVehicle.getMaintenances().add(dbMaintenance);
                     }
@@ -254,4 +671,128 @@ public class VehicleRepositoryImpl implements VehicleRepository {
             throw new RuntimeException("An error Ocurred: " + e.getMessage());
         }
     }
+
+    @Override
+    public Map<Integer, Vehicle> findAllMaintenances(Collection<Integer> ids) {
+
+        Map<Integer, Vehicle> vehicles = new LinkedHashMap<>();
+
+        String query = """
+                SELECT v.*,
+                m.id as m_id, m.vehicle_id, m.description, m.cost, m.date
+                FROM vehicle v
+                LEFT JOIN maintenance m ON v.id = m.vehicle_id
+                WHERE v.id IN (%s)
+                ORDER BY v.id, m.id;
+                """;
+
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
+
+            for (List<Integer> chunk : chunkIds(ids)) {
+
+                try (PreparedStatement ps = conn.prepareStatement(query.formatted(placeholders(chunk.size())))) {
+
+                    bindIds(ps, chunk);
+
+                    try (var rs = ps.executeQuery()) {
+                        VehicleMaintenanceRowMapper mapper = new VehicleMaintenanceRowMapper(rs.getMetaData());
+                        Vehicle dbVehicle = null;
+
+                        while (rs.next()) {
+
+                            int idVehicle = mapper.vehicleId(rs);
+
+                            // Rows arrive grouped by vehicle, so the vehicle columns are mapped once per vehicle
+                            if (dbVehicle == null || dbVehicle.getId() != idVehicle) {
+
+                                dbVehicle = mapper.mapVehicle(rs);
+                                vehicles.put(idVehicle, dbVehicle);
+                            }
+
+                            Maintenance dbMaintenance = mapper.mapMaintenance(rs, idVehicle);
+
+                            if (dbMaintenance != null) {
+
+                                dbVehicle.getMaintenances().add(dbMaintenance);
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("An error Ocurred: " + e.getMessage());
+        }
+
+        return vehicles;
+    }
+
+    // Additional
+
+    private static Integer findVersion(Connection conn, int id) throws SQLException {
+
+        String query = """
+                SELECT version
+                FROM vehicle
+                WHERE id = ?;
+                """;
+
+        try (PreparedStatement ps = conn.prepareStatement(query)) {
+
+            ps.setInt(1, id);
+
+            try (var rs = ps.executeQuery()) {
+
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
+    }
+
+    // SQLState 23000 covers every integrity violation; only error 1062 makes it a duplicate key, so a foreign key
+    // or NOT NULL failure, or a driver that reports no error code, is never mistaken for one
+    private static boolean isDuplicateKey(SQLException e) {
+
+        for (SQLException current = e; current != null; current = current.getNextException()) {
+
+            if (current.getErrorCode() == MYSQL_DUPLICATE_ENTRY
+                    && (current instanceof SQLIntegrityConstraintViolationException
+                    || INTEGRITY_VIOLATION_STATE.equals(current.getSQLState()))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // Short chunks are padded up to a power of two by repeating the last id, so only a handful
+    // of distinct IN (...) statements ever reach the statement cache
+    private static List<List<Integer>> chunkIds(Collection<Integer> ids) {
+
+        List<Integer> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<List<Integer>> chunks = new ArrayList<>();
+
+        for (int start = 0; start < distinct.size(); start += IN_CLAUSE_CHUNK_SIZE) {
+
+            List<Integer> chunk = new ArrayList<>(distinct.subList(start, Math.min(start + IN_CLAUSE_CHUNK_SIZE, distinct.size())));
+            int padded = Integer.highestOneBit(chunk.size() - 1) << 1;
+            Integer last = chunk.get(chunk.size() - 1);
+
+            while (chunk.size() < padded) {
+                chunk.add(last);
+            }
+
+            chunks.add(chunk);
+        }
+
+        return chunks;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static void bindIds(PreparedStatement ps, List<Integer> ids) throws SQLException {
+        for (int i = 0; i < ids.size(); i++) {
+            ps.setInt(i + 1, ids.get(i));
+        }
+    }
 }
@@ -0,0 +1,67 @@
+package pablo.tzeliks.infra.mapping;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+// Which charset the raw bytes of a text column come in. JDBC has no standard call for it, so it is read from
+// Connector/J's own metadata class; with any other driver the charset is unknown and callers must use getString.
+public final class ColumnCharsets {
+
+    private static final String CONNECTOR_J_METADATA = "com.mysql.cj.jdbc.result.ResultSetMetaData";
+
+    private static final Class<?> DRIVER_METADATA;
+    private static final MethodHandle COLUMN_ENCODING;
+
+    static {
+        Class<?> metadata = null;
+        MethodHandle encoding = null;
+
+        try {
+            metadata = Class.forName(CONNECTOR_J_METADATA, false, ColumnCharsets.class.getClassLoader());
+            encoding = MethodHandles.publicLookup().findVirtual(metadata, "getColumnCharacterEncoding",
+                    MethodType.methodType(String.class, int.class));
+        } catch (ReflectiveOperationException | LinkageError e) {
+            metadata = null;
+        }
+
+        DRIVER_METADATA = metadata;
+        COLUMN_ENCODING = encoding;
+    }
+
+    private ColumnCharsets() {
+    }
+
+    // null when the driver does not say, e.g. for a non-MySQL driver or a charset this JVM does not know
+    public static Charset of(ResultSetMetaData metaData, int column) throws SQLException {
+
+        if (DRIVER_METADATA == null || !metaData.isWrapperFor(DRIVER_METADATA)) {
+            return null;
+        }
+
+        String encoding;
+
+        try {
+            encoding = (String) COLUMN_ENCODING.invoke(metaData.unwrap(DRIVER_METADATA), column);
+        } catch (SQLException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new SQLException("Failed to read the charset of column " + column, e);
+        }
+
+        if (encoding == null) {
+            return null;
+        }
+
+        try {
+            return Charset.forName(encoding);
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            return null;
+        }
+    }
+}
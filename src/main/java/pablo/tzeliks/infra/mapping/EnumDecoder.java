@@ -0,0 +1,81 @@
+package pablo.tzeliks.infra.mapping;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+
+// Resolves an enum constant from the raw column bytes, skipping the String and the valueOf hash lookup.
+public final class EnumDecoder {
+
+    private final Class<?> type;
+
+    // Constants grouped by the length of their name; a handful of byte compares decides the match
+    private final Enum<?>[][] byLength;
+    private final byte[][][] namesByLength;
+
+    public EnumDecoder(Class<?> type) {
+        this.type = type;
+
+        Enum<?>[] constants = (Enum<?>[]) type.getEnumConstants();
+        int maxLength = 0;
+
+        for (Enum<?> constant : constants) {
+            maxLength = Math.max(maxLength, constant.name().length());
+        }
+
+        this.byLength = new Enum<?>[maxLength + 1][];
+        this.namesByLength = new byte[maxLength + 1][][];
+
+        for (int length = 0; length <= maxLength; length++) {
+            int count = 0;
+
+            for (Enum<?> constant : constants) {
+                if (constant.name().length() == length) {
+                    count++;
+                }
+            }
+
+            byLength[length] = new Enum<?>[count];
+            namesByLength[length] = new byte[count][];
+            count = 0;
+
+            for (Enum<?> constant : constants) {
+                if (constant.name().length() == length) {
+                    byLength[length][count] = constant;
+                    namesByLength[length][count] = constant.name().getBytes(StandardCharsets.UTF_8);
+                    count++;
+                }
+            }
+        }
+    }
+
+    public Enum<?> decode(byte[] raw) throws SQLException {
+
+        if (raw == null) {
+            return null;
+        }
+
+        if (raw.length < byLength.length) {
+            byte[][] names = namesByLength[raw.length];
+
+            for (int i = 0; i < names.length; i++) {
+                if (matches(names[i], raw)) {
+                    return byLength[raw.length][i];
+                }
+            }
+        }
+
+        throw new SQLException("Unknown " + type.getSimpleName() + " value: "
+                + new String(raw, StandardCharsets.UTF_8));
+    }
+
+    private static boolean matches(byte[] name, byte[] raw) {
+        // Names of the same length usually differ in the first few bytes
+        for (int i = 0; i < name.length; i++) {
+            if (name[i] != raw[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
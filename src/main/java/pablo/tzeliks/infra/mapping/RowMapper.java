@@ -0,0 +1,17 @@
+package pablo.tzeliks.infra.mapping;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+// Turns the current row of a ResultSet into an object; must not move the cursor.
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    T map(ResultSet rs) throws SQLException;
+
+    // A mapper for the rows of one result set, with the column layout already resolved; use it for every row of a loop
+    default RowMapper<T> bind(ResultSetMetaData metaData) throws SQLException {
+        return this;
+    }
+}
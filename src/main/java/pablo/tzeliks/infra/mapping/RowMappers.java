@@ -0,0 +1,371 @@
+package pablo.tzeliks.infra.mapping;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.RecordComponent;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Builds constructor-based RowMappers. Per column layout of a result set, the constructor and one typed
+// getter per parameter are fused into a single MethodHandle, so a row costs no reflection or label lookups.
+public final class RowMappers {
+
+    // Distinct select lists per type are few; past this, plans are rebuilt per result set instead of cached
+    private static final int MAX_SHAPES_PER_TYPE = 64;
+
+    private static final int INTERNER_CAPACITY = 1024;
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private record Registration(Class<?> type, Set<String> internedParameters) {
+    }
+
+    private static final Map<Registration, RowMapper<?>> MAPPERS = new ConcurrentHashMap<>();
+
+    private RowMappers() {
+    }
+
+    // Maps columns to the record components, or to the parameters of the widest constructor of a class.
+    // Parameter "licensePlate" reads column "license_plate" (or "licensePlate"); every parameter needs a column.
+    // internedParameters name String parameters whose column repeats a few values across many rows, such as a
+    // model name; those rows share one String per value instead of allocating one each.
+    @SuppressWarnings("unchecked")
+    public static <T> RowMapper<T> of(Class<T> type, String... internedParameters) {
+        Registration registration = new Registration(type, Set.of(internedParameters));
+
+        return (RowMapper<T>) MAPPERS.computeIfAbsent(registration,
+                r -> new ShapeAwareMapper<>(type, lookupFor(type), r.internedParameters()));
+    }
+
+    // For types whose constructor is not accessible from here, e.g. a private projection record
+    public static <T> RowMapper<T> of(Class<T> type, MethodHandles.Lookup lookup) {
+        return new ShapeAwareMapper<>(type, lookup, Set.of());
+    }
+
+    // Additional
+
+    // Holds only what is shared by every result set; the plan for one column layout lives in the Bound mapper
+    private static final class ShapeAwareMapper<T> implements RowMapper<T> {
+
+        // interning holds, per parameter, whether it is read through its interner in this layout
+        private record Shape(List<String> labels, List<Boolean> interning) {
+        }
+
+        private final Class<T> type;
+        private final Constructor<?> constructor;
+        private final String[] names;
+        private final MethodHandle factory;
+
+        // (ResultSet, int) getters per constructor parameter, shared by every column layout
+        private final MethodHandle[] readers;
+
+        // Per constructor parameter, null unless it was registered as interned
+        private final StringInterner[] interners;
+
+        private final Map<Shape, MethodHandle> plans = new ConcurrentHashMap<>();
+
+        ShapeAwareMapper(Class<T> type, MethodHandles.Lookup lookup, Set<String> internedParameters) {
+            this.type = type;
+            this.constructor = constructorFor(type);
+            this.names = parameterNames(type, constructor);
+
+            try {
+                this.factory = lookup.unreflectConstructor(constructor);
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Cannot access the constructor of " + type.getName(), e);
+            }
+
+            Parameter[] parameters = constructor.getParameters();
+            this.readers = new MethodHandle[parameters.length];
+
+            for (int i = 0; i < parameters.length; i++) {
+                readers[i] = readerFor(parameters[i]);
+            }
+
+            this.interners = new StringInterner[parameters.length];
+
+            for (String interned : internedParameters) {
+                int index = Arrays.asList(names).indexOf(interned);
+
+                if (index < 0 || parameters[index].getType() != String.class) {
+                    throw new IllegalArgumentException("No String parameter named " + interned + " on " + type.getName());
+                }
+
+                interners[index] = new StringInterner(INTERNER_CAPACITY, StandardCharsets.UTF_8);
+            }
+        }
+
+        // Reads the metadata on every call; fine for a single row, loops should bind once instead
+        @Override
+        public T map(ResultSet rs) throws SQLException {
+            return bind(rs.getMetaData()).map(rs);
+        }
+
+        @Override
+        public RowMapper<T> bind(ResultSetMetaData metaData) throws SQLException {
+            return new Bound<>(type, planFor(metaData));
+        }
+
+        private MethodHandle planFor(ResultSetMetaData metaData) throws SQLException {
+
+            List<String> labels = new ArrayList<>(metaData.getColumnCount());
+
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                labels.add(metaData.getColumnLabel(i).toLowerCase());
+            }
+
+            // The interners key on raw bytes and decode them as UTF-8, so any other column charset reads through getString
+            List<Boolean> interning = new ArrayList<>(interners.length);
+
+            for (int i = 0; i < interners.length; i++) {
+                interning.add(interners[i] != null
+                        && StandardCharsets.UTF_8.equals(ColumnCharsets.of(metaData, columnOf(labels, names[i]))));
+            }
+
+            Shape shape = new Shape(labels, interning);
+            MethodHandle plan = plans.get(shape);
+
+            if (plan == null) {
+                plan = compile(shape);
+
+                if (plans.size() < MAX_SHAPES_PER_TYPE) {
+                    plans.put(shape, plan);
+                }
+            }
+
+            return plan;
+        }
+
+        // (ResultSet)Object: every constructor argument is filtered through its column getter,
+        // then all of the getters are fed the same ResultSet
+        private MethodHandle compile(Shape shape) throws SQLException {
+
+            MethodHandle[] columnReaders = new MethodHandle[readers.length];
+
+            for (int i = 0; i < readers.length; i++) {
+                int column = columnOf(shape.labels(), names[i]);
+                MethodHandle reader = shape.interning().get(i) ? internedReader(interners[i]) : readers[i];
+                columnReaders[i] = MethodHandles.insertArguments(reader, 1, column);
+            }
+
+            MethodHandle filtered = MethodHandles.filterArguments(factory, 0, columnReaders);
+            MethodHandle plan = MethodHandles.permuteArguments(filtered,
+                    MethodType.methodType(type, ResultSet.class), new int[readers.length]);
+
+            return plan.asType(MethodType.methodType(Object.class, ResultSet.class));
+        }
+
+        private int columnOf(List<String> labels, String name) throws SQLException {
+
+            // First match wins, as with ResultSet.findColumn
+            int index = labels.indexOf(toSnakeCase(name));
+
+            if (index < 0) {
+                index = labels.indexOf(name.toLowerCase());
+            }
+
+            if (index < 0) {
+                throw new SQLException("No column for " + type.getSimpleName() + "." + name + " in " + labels);
+            }
+
+            return index + 1;
+        }
+    }
+
+    private record Bound<T>(Class<T> type, MethodHandle plan) implements RowMapper<T> {
+
+        @Override
+        public T map(ResultSet rs) throws SQLException {
+            try {
+                return type.cast((Object) plan.invokeExact(rs));
+            } catch (SQLException | RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new SQLException("Failed to map row to " + type.getSimpleName(), e);
+            }
+        }
+    }
+
+    private static MethodHandles.Lookup lookupFor(Class<?> type) {
+        try {
+            return MethodHandles.privateLookupIn(type, LOOKUP);
+        } catch (IllegalAccessException e) {
+            return MethodHandles.publicLookup();
+        }
+    }
+
+    private static Constructor<?> constructorFor(Class<?> type) {
+
+        if (type.isRecord()) {
+            Class<?>[] components = Arrays.stream(type.getRecordComponents())
+                    .map(RecordComponent::getType)
+                    .toArray(Class<?>[]::new);
+
+            try {
+                return type.getDeclaredConstructor(components);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalArgumentException("No canonical constructor on " + type.getName(), e);
+            }
+        }
+
+        Constructor<?> widest = null;
+
+        for (Constructor<?> candidate : type.getDeclaredConstructors()) {
+
+            if (widest == null || candidate.getParameterCount() > widest.getParameterCount()) {
+                widest = candidate;
+            }
+        }
+
+        if (widest == null || widest.getParameterCount() == 0) {
+            throw new IllegalArgumentException(type.getName() + " has no constructor taking the mapped columns");
+        }
+
+        return widest;
+    }
+
+    private static String[] parameterNames(Class<?> type, Constructor<?> constructor) {
+
+        if (type.isRecord()) {
+            return Arrays.stream(type.getRecordComponents()).map(RecordComponent::getName).toArray(String[]::new);
+        }
+
+        Parameter[] parameters = constructor.getParameters();
+
+        if (parameters[0].isNamePresent()) {
+            return Arrays.stream(parameters).map(Parameter::getName).toArray(String[]::new);
+        }
+
+        // Compiled without -parameters: accept the usual "constructor takes the fields in declaration order"
+        List<Field> fields = Arrays.stream(type.getDeclaredFields())
+                .filter(field -> !Modifier.isStatic(field.getModifiers()))
+                .toList();
+
+        if (fields.size() >= parameters.length) {
+            String[] names = new String[parameters.length];
+
+            for (int i = 0; i < parameters.length; i++) {
+
+                if (fields.get(i).getType() != parameters[i].getType()) {
+                    names = null;
+                    break;
+                }
+
+                names[i] = fields.get(i).getName();
+            }
+
+            if (names != null) {
+                return names;
+            }
+        }
+
+        throw new IllegalArgumentException("Cannot tell which column feeds each constructor parameter of "
+                + type.getName() + "; compile with -parameters");
+    }
+
+    private static String toSnakeCase(String name) {
+        StringBuilder snake = new StringBuilder(name.length() + 4);
+
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+
+            if (Character.isUpperCase(c)) {
+                snake.append('_').append(Character.toLowerCase(c));
+            } else {
+                snake.append(c);
+            }
+        }
+
+        return snake.toString();
+    }
+
+    // (ResultSet, int)T for a parameter; primitives read straight from the driver without boxing
+    private static MethodHandle readerFor(Parameter parameter) {
+        Class<?> type = parameter.getType();
+
+        try {
+            if (type == int.class) {
+                return resultSetGetter("getInt", int.class);
+            }
+            if (type == long.class) {
+                return resultSetGetter("getLong", long.class);
+            }
+            if (type == double.class) {
+                return resultSetGetter("getDouble", double.class);
+            }
+            if (type == boolean.class) {
+                return resultSetGetter("getBoolean", boolean.class);
+            }
+            if (type == String.class) {
+                return resultSetGetter("getString", String.class);
+            }
+            if (type == BigDecimal.class) {
+                return resultSetGetter("getBigDecimal", BigDecimal.class);
+            }
+            if (type == Integer.class || type == Long.class || type == Double.class || type == Boolean.class
+                    || type == LocalDate.class || type == LocalDateTime.class) {
+                return typedGetter(type);
+            }
+            if (type.isEnum()) {
+                MethodHandle reader = LOOKUP.findStatic(RowMappers.class, "readEnum",
+                        MethodType.methodType(Enum.class, ResultSet.class, int.class, EnumDecoder.class));
+                reader = MethodHandles.insertArguments(reader, 2, new EnumDecoder(type));
+                return reader.asType(MethodType.methodType(type, ResultSet.class, int.class));
+            }
+
+            return typedGetter(type);
+
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException("Cannot build a column reader for " + type.getName(), e);
+        }
+    }
+
+    // (ResultSet, int)String through the interner; only for columns whose bytes are in the interner's charset
+    private static MethodHandle internedReader(StringInterner interner) {
+        try {
+            MethodHandle reader = LOOKUP.findStatic(RowMappers.class, "readInterned",
+                    MethodType.methodType(String.class, ResultSet.class, int.class, StringInterner.class));
+            return MethodHandles.insertArguments(reader, 2, interner);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException("Cannot build an interned column reader", e);
+        }
+    }
+
+    private static MethodHandle resultSetGetter(String name, Class<?> returnType)
+            throws NoSuchMethodException, IllegalAccessException {
+        return LOOKUP.findVirtual(ResultSet.class, name, MethodType.methodType(returnType, int.class));
+    }
+
+    // getObject(column, type) gives null for SQL NULL and lets the driver build java.time values directly
+    private static MethodHandle typedGetter(Class<?> type) throws NoSuchMethodException, IllegalAccessException {
+        MethodHandle getter = LOOKUP.findVirtual(ResultSet.class, "getObject",
+                MethodType.methodType(Object.class, int.class, Class.class));
+        getter = MethodHandles.insertArguments(getter, 2, type);
+        return getter.asType(MethodType.methodType(type, ResultSet.class, int.class));
+    }
+
+    // getBytes hands over the column as sent by the server, before any String is built
+    private static Enum<?> readEnum(ResultSet rs, int column, EnumDecoder decoder) throws SQLException {
+        return decoder.decode(rs.getBytes(column));
+    }
+
+    private static String readInterned(ResultSet rs, int column, StringInterner interner) throws SQLException {
+        return interner.intern(rs.getBytes(column));
+    }
+}
@@ -0,0 +1,68 @@
+package pablo.tzeliks.infra.mapping;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+// Bounded, lossy intern table keyed by the raw bytes of a column in one charset. A hit returns the String decoded
+// earlier, so low-cardinality columns stop allocating one String per row; a collision just replaces the slot.
+public final class StringInterner {
+
+    // Key and value travel together so a reader never pairs one thread's key with another's value
+    private record Entry(byte[] key, String value) {
+    }
+
+    private final Entry[] table;
+    private final int mask;
+    private final Charset charset;
+
+    // capacity is rounded up to a power of two; charset must be the one the column bytes are encoded in,
+    // see ColumnCharsets
+    public StringInterner(int capacity, Charset charset) {
+
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Interner capacity must be positive: " + capacity);
+        }
+
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+
+        this.table = new Entry[size];
+        this.mask = size - 1;
+        this.charset = charset;
+    }
+
+    public String intern(byte[] raw) {
+
+        if (raw == null) {
+            return null;
+        }
+
+        int slot = hash(raw) & mask;
+
+        // Unsynchronized on purpose: a racing writer can only cost a miss, and Entry's final fields
+        // make whatever is read fully initialized
+        Entry cached = table[slot];
+
+        if (cached != null && Arrays.equals(cached.key(), raw)) {
+            return cached.value();
+        }
+
+        String value = new String(raw, charset);
+        table[slot] = new Entry(raw, value);
+        return value;
+    }
+
+    public int capacity() {
+        return table.length;
+    }
+
+    public Charset charset() {
+        return charset;
+    }
+
+    // Additional
+
+    private static int hash(byte[] raw) {
+        int h = Arrays.hashCode(raw);
+        return h ^ (h >>> 16);
+    }
+}
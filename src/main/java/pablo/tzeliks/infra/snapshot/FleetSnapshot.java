@@ -0,0 +1,321 @@
+package pablo.tzeliks.infra.snapshot;
+
+import pablo.tzeliks.domain.VehicleStatus;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+// Immutable, column-per-attribute copy of the vehicle table. Row i of every array describes the same vehicle,
+// ordered by id; queries scan the primitive columns, in parallel chunks once the fleet is large enough.
+public final class FleetSnapshot {
+
+    // Below this many rows a sequential scan beats the fork/join overhead
+    private static final int PARALLEL_THRESHOLD = 1 << 15;
+    private static final int CHUNK_SIZE = 1 << 13;
+
+    private static final VehicleStatus[] STATUSES = VehicleStatus.values();
+
+    // Nullable fields mean "any"; the date bounds are exclusive
+    public record Criteria(VehicleStatus status, String model, LocalDate manufacturedAfter, LocalDate manufacturedBefore) {
+
+        public static Criteria any() {
+            return new Criteria(null, null, null, null);
+        }
+
+        public Criteria withStatus(VehicleStatus status) {
+            return new Criteria(status, model, manufacturedAfter, manufacturedBefore);
+        }
+
+        public Criteria withModel(String model) {
+            return new Criteria(status, model, manufacturedAfter, manufacturedBefore);
+        }
+
+        public Criteria withManufacturedAfter(LocalDate date) {
+            return new Criteria(status, model, date, manufacturedBefore);
+        }
+
+        public Criteria withManufacturedBefore(LocalDate date) {
+            return new Criteria(status, model, manufacturedAfter, date);
+        }
+    }
+
+    private final int[] ids;
+    private final int[] manufacturingDays;
+    private final byte[] statuses;
+    private final int[] modelCodes;
+    private final String[] models;
+    private final Map<String, Integer> modelCodeByName;
+    private final Instant loadedAt;
+
+    // Arrays are taken as-is; snapshots come only from FleetSnapshotLoader or patchedWith
+    FleetSnapshot(int[] ids, int[] manufacturingDays, byte[] statuses, int[] modelCodes, String[] models,
+                  Map<String, Integer> modelCodeByName, Instant loadedAt) {
+        this.ids = ids;
+        this.manufacturingDays = manufacturingDays;
+        this.statuses = statuses;
+        this.modelCodes = modelCodes;
+        this.models = models;
+        this.modelCodeByName = modelCodeByName;
+        this.loadedAt = loadedAt;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int distinctModels() {
+        return models.length;
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    public boolean contains(int id) {
+        return Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    public VehicleStatus statusOf(int id) {
+        int row = Arrays.binarySearch(ids, id);
+        return row < 0 ? null : STATUSES[statuses[row]];
+    }
+
+    public long count(Criteria criteria) {
+        Filter filter = compile(criteria);
+
+        if (filter == null) {
+            return 0;
+        }
+
+        return chunks().mapToLong(chunk -> {
+            long matches = 0;
+
+            for (int row = start(chunk), end = end(chunk); row < end; row++) {
+                if (filter.test(row)) {
+                    matches++;
+                }
+            }
+
+            return matches;
+        }).sum();
+    }
+
+    // Ascending ids of the matching vehicles
+    public int[] matchingIds(Criteria criteria) {
+        Filter filter = compile(criteria);
+
+        if (filter == null) {
+            return new int[0];
+        }
+
+        return chunks().mapToObj(chunk -> {
+            int[] found = new int[end(chunk) - start(chunk)];
+            int size = 0;
+
+            for (int row = start(chunk), end = end(chunk); row < end; row++) {
+                if (filter.test(row)) {
+                    found[size++] = ids[row];
+                }
+            }
+
+            return Arrays.copyOf(found, size);
+        }).flatMapToInt(Arrays::stream).toArray();
+    }
+
+    // Models in first-seen order: by the lowest id carrying them at load, then as patches brought new ones in
+    public Map<String, Long> countByModel(Criteria criteria) {
+        long[] counts = groupCounts(criteria, models.length, row -> modelCodes[row]);
+        Map<String, Long> result = new LinkedHashMap<>();
+
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                result.put(models[code], counts[code]);
+            }
+        }
+
+        return result;
+    }
+
+    public Map<VehicleStatus, Long> countByStatus(Criteria criteria) {
+        long[] counts = groupCounts(criteria, STATUSES.length, row -> statuses[row]);
+        Map<VehicleStatus, Long> result = new EnumMap<>(VehicleStatus.class);
+
+        for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+            if (counts[ordinal] > 0) {
+                result.put(STATUSES[ordinal], counts[ordinal]);
+            }
+        }
+
+        return result;
+    }
+
+    // Additional
+
+    // A new snapshot where every changedId takes its row from changedRows, or disappears when changedRows has none.
+    // One linear merge over the columns; far cheaper than reloading the table, but still a full copy per call.
+    FleetSnapshot patchedWith(int[] changedIds, FleetSnapshot changedRows) {
+
+        // Models first seen in the delta are appended; codes already handed out keep their meaning
+        Map<String, Integer> codes = modelCodeByName;
+        String[] patchedModels = models;
+        int[] remap = new int[changedRows.models.length];
+
+        for (int code = 0; code < remap.length; code++) {
+            String model = changedRows.models[code];
+            Integer existing = codes.get(model);
+
+            if (existing == null) {
+                if (codes == modelCodeByName) {
+                    codes = new HashMap<>(modelCodeByName);
+                }
+
+                existing = patchedModels.length;
+                patchedModels = Arrays.copyOf(patchedModels, existing + 1);
+                patchedModels[existing] = model;
+                codes.put(model, existing);
+            }
+
+            remap[code] = existing;
+        }
+
+        int capacity = ids.length + changedRows.ids.length;
+        int[] patchedIds = new int[capacity];
+        int[] patchedDays = new int[capacity];
+        byte[] patchedStatuses = new byte[capacity];
+        int[] patchedModelCodes = new int[capacity];
+
+        int size = 0;
+        int row = 0;
+        int fresh = 0;
+        int changed = 0;
+
+        while (row < ids.length || fresh < changedRows.ids.length) {
+
+            if (fresh < changedRows.ids.length && (row == ids.length || changedRows.ids[fresh] <= ids[row])) {
+
+                // Inserted, or replaces the base row carrying the same id
+                if (row < ids.length && ids[row] == changedRows.ids[fresh]) {
+                    row++;
+                }
+
+                patchedIds[size] = changedRows.ids[fresh];
+                patchedDays[size] = changedRows.manufacturingDays[fresh];
+                patchedStatuses[size] = changedRows.statuses[fresh];
+                patchedModelCodes[size] = remap[changedRows.modelCodes[fresh]];
+                size++;
+                fresh++;
+                continue;
+            }
+
+            while (changed < changedIds.length && changedIds[changed] < ids[row]) {
+                changed++;
+            }
+
+            // A changed id without a fresh row was deleted
+            if (changed == changedIds.length || changedIds[changed] != ids[row]) {
+                patchedIds[size] = ids[row];
+                patchedDays[size] = manufacturingDays[row];
+                patchedStatuses[size] = statuses[row];
+                patchedModelCodes[size] = modelCodes[row];
+                size++;
+            }
+
+            row++;
+        }
+
+        return new FleetSnapshot(
+                Arrays.copyOf(patchedIds, size),
+                Arrays.copyOf(patchedDays, size),
+                Arrays.copyOf(patchedStatuses, size),
+                Arrays.copyOf(patchedModelCodes, size),
+                patchedModels,
+                Map.copyOf(codes),
+                changedRows.loadedAt
+        );
+    }
+
+    @FunctionalInterface
+    private interface Filter {
+        boolean test(int row);
+    }
+
+    @FunctionalInterface
+    private interface GroupKey {
+        int of(int row);
+    }
+
+    // Every chunk fills its own counters; they are summed once at the end instead of contending per row
+    private long[] groupCounts(Criteria criteria, int groups, GroupKey key) {
+        Filter filter = compile(criteria);
+
+        if (filter == null) {
+            return new long[groups];
+        }
+
+        return chunks().mapToObj(chunk -> {
+            long[] counts = new long[groups];
+
+            for (int row = start(chunk), end = end(chunk); row < end; row++) {
+                if (filter.test(row)) {
+                    counts[key.of(row)]++;
+                }
+            }
+
+            return counts;
+        }).reduce(new long[groups], (left, right) -> {
+            long[] merged = new long[groups];
+
+            for (int i = 0; i < groups; i++) {
+                merged[i] = left[i] + right[i];
+            }
+
+            return merged;
+        });
+    }
+
+    // Resolves the criteria to primitive comparisons once; null means nothing can match
+    private Filter compile(Criteria criteria) {
+        int status = criteria.status() == null ? -1 : criteria.status().ordinal();
+        int after = criteria.manufacturedAfter() == null ? Integer.MIN_VALUE : (int) criteria.manufacturedAfter().toEpochDay();
+        int before = criteria.manufacturedBefore() == null ? Integer.MAX_VALUE : (int) criteria.manufacturedBefore().toEpochDay();
+        int model = -1;
+
+        if (criteria.model() != null) {
+            Integer code = modelCodeByName.get(criteria.model());
+
+            if (code == null) {
+                return null;
+            }
+
+            model = code;
+        }
+
+        int wantedStatus = status;
+        int wantedModel = model;
+
+        return row -> (wantedStatus < 0 || statuses[row] == wantedStatus)
+                && (wantedModel < 0 || modelCodes[row] == wantedModel)
+                && manufacturingDays[row] > after
+                && manufacturingDays[row] < before;
+    }
+
+    private IntStream chunks() {
+        int count = (ids.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        IntStream chunks = IntStream.range(0, count);
+        return ids.length >= PARALLEL_THRESHOLD ? chunks.parallel() : chunks;
+    }
+
+    private static int start(int chunk) {
+        return chunk * CHUNK_SIZE;
+    }
+
+    private int end(int chunk) {
+        return Math.min(ids.length, (chunk + 1) * CHUNK_SIZE);
+    }
+}
@@ -0,0 +1,189 @@
+package pablo.tzeliks.infra.snapshot;
+
+import pablo.tzeliks.domain.VehicleStatus;
+import pablo.tzeliks.infra.mapping.ColumnCharsets;
+import pablo.tzeliks.infra.mapping.EnumDecoder;
+import pablo.tzeliks.infra.mapping.StringInterner;
+import pablo.tzeliks.utils.DatabaseConnection;
+
+import java.nio.charset.Charset;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Streams the vehicle table straight into primitive columns; no Vehicle object is built along the way.
+final class FleetSnapshotLoader {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MODEL_INTERNER_CAPACITY = 4096;
+    private static final int IN_CLAUSE_CHUNK_SIZE = 512;
+
+    private static final EnumDecoder STATUS_DECODER = new EnumDecoder(VehicleStatus.class);
+
+    private FleetSnapshotLoader() {
+    }
+
+    // Read from the primary, like loadRows: a lagging replica could hand back rows older than patches
+    // already applied from the change feed, and swapping that snapshot in would undo them
+    static FleetSnapshot load() {
+
+        String query = """
+                SELECT id, model, manufacturing_date, status
+                FROM vehicle
+                ORDER BY id;
+                """;
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            ps.setFetchSize(DatabaseConnection.getConfig().getStreamingFetchSize());
+
+            Columns columns = new Columns(INITIAL_CAPACITY, MODEL_INTERNER_CAPACITY);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                columns.readFrom(rs.getMetaData());
+
+                while (rs.next()) {
+                    columns.add(rs);
+                }
+            }
+
+            return columns.build();
+
+        } catch (SQLException e) {
+            throw new RuntimeException("An error Ocurred: " + e.getMessage());
+        }
+    }
+
+    // Current rows of the given ascending ids; an id with no row was deleted. Read from the primary so a
+    // change announced by the feed is never patched in with a lagging replica's older row.
+    static FleetSnapshot loadRows(int[] ids) {
+
+        String query = """
+                SELECT id, model, manufacturing_date, status
+                FROM vehicle
+                WHERE id IN (%s)
+                ORDER BY id;
+                """;
+
+        Columns columns = new Columns(ids.length, ids.length);
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+
+            // Ascending chunks of ascending ids keep the columns ordered by id
+            for (int start = 0; start < ids.length; start += IN_CLAUSE_CHUNK_SIZE) {
+
+                int end = Math.min(start + IN_CLAUSE_CHUNK_SIZE, ids.length);
+
+                try (PreparedStatement ps = conn.prepareStatement(
+                        query.formatted(String.join(", ", Collections.nCopies(end - start, "?"))))) {
+
+                    for (int i = start; i < end; i++) {
+                        ps.setInt(i - start + 1, ids[i]);
+                    }
+
+                    try (ResultSet rs = ps.executeQuery()) {
+                        columns.readFrom(rs.getMetaData());
+
+                        while (rs.next()) {
+                            columns.add(rs);
+                        }
+                    }
+                }
+            }
+
+            return columns.build();
+
+        } catch (SQLException e) {
+            throw new RuntimeException("An error Ocurred: " + e.getMessage());
+        }
+    }
+
+    // Additional
+
+    private static final class Columns {
+
+        private int[] ids;
+        private int[] days;
+        private byte[] statuses;
+        private int[] modelCodes;
+
+        // Interning first means the dictionary lookup hashes each distinct model String only once
+        private final int internerCapacity;
+        private StringInterner interner;
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> models = new ArrayList<>();
+
+        private int size;
+
+        Columns(int capacity, int internerCapacity) {
+            int initial = Math.max(capacity, 1);
+
+            this.ids = new int[initial];
+            this.days = new int[initial];
+            this.statuses = new byte[initial];
+            this.modelCodes = new int[initial];
+            this.internerCapacity = Math.max(internerCapacity, 1);
+        }
+
+        // Raw model bytes can only be interned when their charset is known; otherwise the driver decodes them
+        void readFrom(ResultSetMetaData metaData) throws SQLException {
+            Charset charset = ColumnCharsets.of(metaData, 2);
+
+            if (charset == null) {
+                interner = null;
+            } else if (interner == null || !interner.charset().equals(charset)) {
+                interner = new StringInterner(internerCapacity, charset);
+            }
+        }
+
+        void add(ResultSet rs) throws SQLException {
+
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                days = Arrays.copyOf(days, capacity);
+                statuses = Arrays.copyOf(statuses, capacity);
+                modelCodes = Arrays.copyOf(modelCodes, capacity);
+            }
+
+            String model = interner != null ? interner.intern(rs.getBytes(2)) : rs.getString(2);
+            Integer code = codes.get(model);
+
+            if (code == null) {
+                code = models.size();
+                codes.put(model, code);
+                models.add(model);
+            }
+
+            ids[size] = rs.getInt(1);
+            days[size] = (int) rs.getObject(3, LocalDate.class).toEpochDay();
+            statuses[size] = (byte) STATUS_DECODER.decode(rs.getBytes(4)).ordinal();
+            modelCodes[size] = code;
+            size++;
+        }
+
+        FleetSnapshot build() {
+            return new FleetSnapshot(
+                    Arrays.copyOf(ids, size),
+                    Arrays.copyOf(days, size),
+                    Arrays.copyOf(statuses, size),
+                    Arrays.copyOf(modelCodes, size),
+                    models.toArray(String[]::new),
+                    Map.copyOf(codes),
+                    Instant.now()
+            );
+        }
+    }
+}
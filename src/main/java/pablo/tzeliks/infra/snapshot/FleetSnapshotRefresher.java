@@ -0,0 +1,88 @@
+package pablo.tzeliks.infra.snapshot;
+
+import pablo.tzeliks.domain.ChangeEvent;
+import pablo.tzeliks.infra.ChangeFeedPoller;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Holds the current FleetSnapshot and swaps in a freshly loaded one on a fixed delay; subscribed to a change feed,
+// it also patches in just the changed vehicles between reloads.
+// Readers never block: they keep using the snapshot they already have until the swap.
+public class FleetSnapshotRefresher implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger("pablo.tzeliks.snapshot");
+
+    private final ScheduledExecutorService scheduler;
+
+    private volatile FleetSnapshot current;
+
+    // The first snapshot is loaded before the constructor returns
+    public FleetSnapshotRefresher(long refreshInterval, TimeUnit unit) {
+
+        if (refreshInterval <= 0) {
+            throw new IllegalArgumentException("Refresh interval must be positive: " + refreshInterval);
+        }
+
+        this.current = FleetSnapshotLoader.load();
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "fleet-snapshot-refresher");
+            t.setDaemon(true);
+            return t;
+        });
+
+        scheduler.scheduleWithFixedDelay(this::refreshQuietly, refreshInterval, refreshInterval, unit);
+    }
+
+    public FleetSnapshot current() {
+        return current;
+    }
+
+    // Reloads now, e.g. right after a write the caller needs to see
+    public synchronized FleetSnapshot refresh() {
+        FleetSnapshot loaded = FleetSnapshotLoader.load();
+        current = loaded;
+        return loaded;
+    }
+
+    // Patches on every change; a change the feed lost track of can only be picked up by a full reload
+    public void subscribeTo(ChangeFeedPoller poller) {
+        poller.subscribe(this::onChanges);
+        poller.onMissedChanges(this::refresh);
+    }
+
+    // Change feed subscriber; maintenance events carry no snapshot columns and are ignored
+    public synchronized void onChanges(List<ChangeEvent> events) {
+        int[] changedIds = events.stream()
+                .filter(ChangeEvent::isVehicle)
+                .mapToInt(ChangeEvent::entityId)
+                .sorted()
+                .distinct()
+                .toArray();
+
+        if (changedIds.length > 0) {
+            current = current.patchedWith(changedIds, FleetSnapshotLoader.loadRows(changedIds));
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    // Additional
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            // A failed reload leaves the previous snapshot in place; the next tick tries again
+            LOG.log(Level.WARNING, "Failed to refresh the fleet snapshot", e);
+        }
+    }
+}
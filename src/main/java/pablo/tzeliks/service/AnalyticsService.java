@@ -0,0 +1,47 @@
+package pablo.tzeliks.service;
+
+import pablo.tzeliks.domain.CostRollup;
+import pablo.tzeliks.infra.AnalyticsRepository;
+
+import java.util.stream.Stream;
+
+public class AnalyticsService {
+
+    private static final int MAX_TOP_VEHICLES = 1000;
+
+    private final AnalyticsRepository analyticsRepository;
+
+    public AnalyticsService(AnalyticsRepository analyticsRepository) {
+        this.analyticsRepository = analyticsRepository;
+    }
+
+    public Stream<CostRollup> costByVehicle() {
+
+        return analyticsRepository.costByVehicle();
+    }
+
+    public Stream<CostRollup> costByModel() {
+
+        return analyticsRepository.costByModel();
+    }
+
+    public Stream<CostRollup> costByStatus() {
+
+        return analyticsRepository.costByStatus();
+    }
+
+    public Stream<CostRollup> costByMonth() {
+
+        return analyticsRepository.costByMonth();
+    }
+
+    public Stream<CostRollup> topExpensiveVehicles(int limit) {
+
+        if (limit <= 0 || limit > MAX_TOP_VEHICLES) {
+
+            throw new RuntimeException("Limite inválido para o ranking de veículos!");
+        }
+
+        return analyticsRepository.topExpensiveVehicles(limit);
+    }
+}
@@ -0,0 +1,56 @@
+package pablo.tzeliks.service;
+
+import pablo.tzeliks.domain.Maintenance;
+import pablo.tzeliks.domain.Page;
+import pablo.tzeliks.utils.BoundedDatabaseExecutor;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+public class AsyncMaintenanceService {
+
+    private final MaintenanceService maintenanceService;
+    private final BoundedDatabaseExecutor executor;
+
+    public AsyncMaintenanceService(MaintenanceService maintenanceService, BoundedDatabaseExecutor executor) {
+        this.maintenanceService = maintenanceService;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<Maintenance> addMaintenance(int idVehicle, Maintenance maintenance) {
+
+        return executor.submit(() -> maintenanceService.addMaintenance(idVehicle, maintenance));
+    }
+
+    public CompletableFuture<List<Maintenance>> addMaintenances(int idVehicle, Collection<Maintenance> maintenances) {
+
+        return executor.submit(() -> maintenanceService.addMaintenances(idVehicle, maintenances));
+    }
+
+    public CompletableFuture<BigDecimal> calculateTotalMaintenanceCost(int idVehicle) {
+
+        return executor.submit(() -> maintenanceService.calculateTotalMaintenanceCost(idVehicle));
+    }
+
+    public CompletableFuture<Page<Maintenance>> findMaintenanceHistory(int idVehicle, int afterId, int limit) {
+
+        return executor.submit(() -> maintenanceService.findMaintenanceHistory(idVehicle, afterId, limit));
+    }
+
+    // Additional Methods
+
+    public CompletableFuture<Map<Integer, BigDecimal>> calculateTotalMaintenanceCosts(Collection<Integer> idsVehicles) {
+
+        Map<Integer, CompletableFuture<BigDecimal>> futures = idsVehicles.stream()
+                .distinct()
+                .collect(Collectors.toMap(id -> id, this::calculateTotalMaintenanceCost));
+
+        return CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> futures.entrySet().stream()
+                        .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().join())));
+    }
+}
@@ -0,0 +1,82 @@
+package pablo.tzeliks.service;
+
+import pablo.tzeliks.domain.Page;
+import pablo.tzeliks.domain.Vehicle;
+import pablo.tzeliks.domain.VehicleStatus;
+import pablo.tzeliks.utils.BoundedDatabaseExecutor;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+public class AsyncVehicleService {
+
+    private final VehicleService vehicleService;
+    private final BoundedDatabaseExecutor executor;
+
+    public AsyncVehicleService(VehicleService vehicleService, BoundedDatabaseExecutor executor) {
+        this.vehicleService = vehicleService;
+        this.executor = executor;
+    }
+
+    public CompletableFuture<Vehicle> save(Vehicle vehicle) {
+
+        return executor.submit(() -> vehicleService.save(vehicle));
+    }
+
+    public CompletableFuture<List<Vehicle>> saveAll(Collection<Vehicle> vehicles) {
+
+        return executor.submit(() -> vehicleService.saveAll(vehicles));
+    }
+
+    public CompletableFuture<Vehicle> findById(int id) {
+
+        return executor.submit(() -> vehicleService.findById(id));
+    }
+
+    public CompletableFuture<Map<Integer, Vehicle>> findByIds(Collection<Integer> ids) {
+
+        return executor.submit(() -> vehicleService.findByIds(ids));
+    }
+
+    public CompletableFuture<Page<Vehicle>> findPage(int afterId, int limit, VehicleStatus status) {
+
+        return executor.submit(() -> vehicleService.findPage(afterId, limit, status));
+    }
+
+    public CompletableFuture<Vehicle> update(Vehicle newVehicle) {
+
+        return executor.submit(() -> vehicleService.update(newVehicle));
+    }
+
+    public CompletableFuture<List<Vehicle>> findAll() {
+
+        return executor.submit(vehicleService::findAll);
+    }
+
+    public CompletableFuture<Void> delete(int id) {
+
+        return executor.run(() -> vehicleService.delete(id));
+    }
+
+    public CompletableFuture<Vehicle> findWithMaintenances(int idVeiculo) {
+
+        return executor.submit(() -> vehicleService.findWithMaintenances(idVeiculo));
+    }
+
+    // Additional Methods
+
+    // Fans out one lookup per id; the executor keeps the number of concurrent queries within the pool size
+    public CompletableFuture<List<Vehicle>> findWithMaintenancesConcurrently(Collection<Integer> idsVeiculos) {
+
+        List<CompletableFuture<Vehicle>> futures = idsVeiculos.stream()
+                .map(this::findWithMaintenances)
+                .toList();
+
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> futures.stream()
+                        .map(CompletableFuture::join)
+                        .toList());
+    }
+}
@@ -0,0 +1,58 @@
+package pablo.tzeliks.service;
+
+import pablo.tzeliks.domain.VehicleStatus;
+import pablo.tzeliks.infra.snapshot.FleetSnapshot;
+import pablo.tzeliks.infra.snapshot.FleetSnapshotRefresher;
+
+import java.util.Map;
+
+// Dispatch questions answered from the in-memory snapshot; results may lag the database by one refresh interval.
+public class FleetSnapshotService {
+
+    private final FleetSnapshotRefresher refresher;
+
+    public FleetSnapshotService(FleetSnapshotRefresher refresher) {
+        this.refresher = refresher;
+    }
+
+    public long count(FleetSnapshot.Criteria criteria) {
+
+        return refresher.current().count(validate(criteria));
+    }
+
+    public int[] findIds(FleetSnapshot.Criteria criteria) {
+
+        return refresher.current().matchingIds(validate(criteria));
+    }
+
+    public Map<String, Long> countByModel(FleetSnapshot.Criteria criteria) {
+
+        return refresher.current().countByModel(validate(criteria));
+    }
+
+    public Map<VehicleStatus, Long> countByStatus(FleetSnapshot.Criteria criteria) {
+
+        return refresher.current().countByStatus(validate(criteria));
+    }
+
+    public FleetSnapshot refresh() {
+
+        return refresher.refresh();
+    }
+
+    private FleetSnapshot.Criteria validate(FleetSnapshot.Criteria criteria) {
+
+        if (criteria == null) {
+
+            throw new RuntimeException("Critério de busca inválido!");
+        }
+
+        if (criteria.manufacturedAfter() != null && criteria.manufacturedBefore() != null
+                && !criteria.manufacturedAfter().isBefore(criteria.manufacturedBefore())) {
+
+            throw new RuntimeException("Intervalo de fabricação inválido!");
+        }
+
+        return criteria;
+    }
+}
@@ -1,16 +1,23 @@
 package pablo.tzeliks.service;
 
 import pablo.tzeliks.domain.Maintenance;
+import pablo.tzeliks.domain.MaintenanceSummary;
+import pablo.tzeliks.domain.Page;
+import pablo.tzeliks.domain.Vehicle;
 import pablo.tzeliks.domain.VehicleStatus;
 import pablo.tzeliks.infra.MaintenanceRepository;
 import pablo.tzeliks.infra.VehicleRepository;
+import pablo.tzeliks.utils.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 
 public class MaintenanceService {
 
     private MaintenanceRepository maintenanceRepository;
     private VehicleRepository vehicleRepository;
+    private TransactionTemplate transactionTemplate = new TransactionTemplate();
 
     public MaintenanceService(MaintenanceRepository maintenanceRepository, VehicleRepository vehicleRepository) {
         this.maintenanceRepository = maintenanceRepository;
@@ -19,19 +26,77 @@ public class MaintenanceService {
 
     public Maintenance addMaintenance(int idVehicle, Maintenance maintenance) {
 
-        if (vehicleRepository.findById(idVehicle) == null) {
+        var dbMaintenance = maintenanceRepository.saveAndFlagVehicle(idVehicle, maintenance);
+
+        if (dbMaintenance == null) {
 
             throw new RuntimeException("Veículo não encontrado para adicionar manutenção!");
         }
 
-        var dbMaintenance = maintenanceRepository.save(idVehicle, maintenance);
-        vehicleRepository.updateStatus(idVehicle, VehicleStatus.IN_MAINTANENCE);
+        // The status changed behind the vehicle repository's back
+        vehicleRepository.invalidate(idVehicle);
 
         return dbMaintenance;
     }
 
+    public List<Maintenance> addMaintenances(int idVehicle, Collection<Maintenance> maintenances) {
+
+        // One connection on the primary for both writes; a failure undoes all of them.
+        // Flagging first doubles as the existence check: no row updated means no vehicle, and no extra SELECT
+        return transactionTemplate.execute(() -> {
+
+            if (!vehicleRepository.updateStatus(idVehicle, VehicleStatus.IN_MAINTANENCE)) {
+
+                throw new RuntimeException("Veículo não encontrado para adicionar manutenção!");
+            }
+
+            return maintenanceRepository.saveAll(idVehicle, maintenances);
+        });
+    }
+
+    // Registers a vehicle together with its history; neither is stored if any part fails
+    public Vehicle registerVehicleWithHistory(Vehicle vehicle, Collection<Maintenance> history) {
+
+        return transactionTemplate.execute(() -> {
+
+            var dbVehicle = vehicleRepository.save(vehicle);
+
+            if (!history.isEmpty()) {
+
+                maintenanceRepository.saveAll(dbVehicle.getId(), history);
+                vehicleRepository.updateStatus(dbVehicle.getId(), VehicleStatus.IN_MAINTANENCE);
+                dbVehicle.setStatus(VehicleStatus.IN_MAINTANENCE);
+            }
+
+            return dbVehicle;
+        });
+    }
+
     public BigDecimal calculateTotalMaintenanceCost(int idVehicle) {
 
         return maintenanceRepository.calculateTotalCostsFromOneVehicle(idVehicle);
     }
+
+    public MaintenanceSummary findMaintenanceSummary(int idVehicle) {
+
+        return maintenanceRepository.findSummary(idVehicle);
+    }
+
+    // Returns the vehicles whose totals had drifted; the aggregate is rebuilt only when needed
+    public List<Integer> repairMaintenanceSummaries() {
+
+        List<Integer> drifted = maintenanceRepository.verifySummaries();
+
+        if (!drifted.isEmpty()) {
+
+            maintenanceRepository.rebuildSummaries();
+        }
+
+        return drifted;
+    }
+
+    public Page<Maintenance> findMaintenanceHistory(int idVehicle, int afterId, int limit) {
+
+        return maintenanceRepository.findPageByVehicle(idVehicle, afterId, limit);
+    }
 }
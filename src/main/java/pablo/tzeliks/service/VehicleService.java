@@ -1,26 +1,46 @@
 package pablo.tzeliks.service;
 
+import pablo.tzeliks.domain.Page;
 import pablo.tzeliks.domain.Vehicle;
+import pablo.tzeliks.domain.VehicleStatus;
+import pablo.tzeliks.exception.OptimisticLockException;
 import pablo.tzeliks.infra.VehicleRepository;
+import pablo.tzeliks.utils.DatabaseConnection;
+import pablo.tzeliks.utils.TransactionTemplate;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
 
 public class VehicleService {
 
+    private static final int MAX_UPDATE_ATTEMPTS = 5;
+    private static final long RETRY_BACKOFF_MILLIS = 10;
+
     private final VehicleRepository vehicleRepository;
 
     public VehicleService(VehicleRepository vehicleRepository) {
         this.vehicleRepository = vehicleRepository;
     }
 
+    // The UNIQUE constraint on license_plate is the check; duplicates surface as DuplicatePlateException
     public Vehicle save(Vehicle vehicle) {
 
-        if (!validatePlate(vehicle.getLicensePlate())) {
+        return vehicleRepository.save(vehicle);
+    }
 
-            throw new RuntimeException("Veículo já cadastrado com esta placa!");
-        }
+    public List<Vehicle> saveAll(Collection<Vehicle> vehicles) {
 
-        return vehicleRepository.save(vehicle);
+        return vehicleRepository.saveAll(vehicles);
+    }
+
+    // Imports can skip the plate check: an existing plate is updated in place
+    public Vehicle saveOrUpdate(Vehicle vehicle) {
+
+        return vehicleRepository.saveOrUpdate(vehicle);
     }
 
     public Vehicle findById(int id) {
@@ -35,6 +55,11 @@ public class VehicleService {
         return dbVehicle;
     }
 
+    public Map<Integer, Vehicle> findByIds(Collection<Integer> ids) {
+
+        return vehicleRepository.findByIds(ids);
+    }
+
     public Vehicle update(Vehicle newVehicle) {
 
         var dbNewVehicle = vehicleRepository.update(newVehicle);
@@ -47,11 +72,59 @@ public class VehicleService {
         return dbNewVehicle;
     }
 
+    // Read-modify-write without locks: on a version conflict the vehicle is re-read and the change applied again
+    public Vehicle update(int id, UnaryOperator<Vehicle> change) {
+
+        for (int attempt = 1; ; attempt++) {
+
+            // The primary has the latest version; a lagging replica would only cause another conflict
+            Vehicle current = DatabaseConnection.onPrimary(() -> findById(id));
+
+            try {
+                return update(change.apply(current));
+
+            } catch (OptimisticLockException e) {
+
+                // Inside a transaction the re-read would see the same snapshot; the caller has to start over
+                if (attempt == MAX_UPDATE_ATTEMPTS || TransactionTemplate.isActive()) {
+                    throw e;
+                }
+
+                backOff(attempt);
+            }
+        }
+    }
+
     public List<Vehicle> findAll() {
 
         return vehicleRepository.findAll();
     }
 
+    public Page<Vehicle> findPage(int afterId, int limit) {
+
+        return vehicleRepository.findPage(afterId, limit, null);
+    }
+
+    public Page<Vehicle> findPage(int afterId, int limit, VehicleStatus status) {
+
+        return vehicleRepository.findPage(afterId, limit, status);
+    }
+
+    public Stream<Vehicle> streamAll() {
+
+        return vehicleRepository.streamAll();
+    }
+
+    public int updateStatus(Collection<Integer> ids, VehicleStatus newStatus) {
+
+        return vehicleRepository.updateStatus(ids, newStatus);
+    }
+
+    public int updateStatusBulk(Map<Integer, VehicleStatus> newStatuses) {
+
+        return vehicleRepository.updateStatusBulk(newStatuses);
+    }
+
     public void delete(int id) {
 
         vehicleRepository.delete(id);
@@ -62,10 +135,20 @@ public class VehicleService {
         return vehicleRepository.findAllMaintenances(idVeiculo);
     }
 
-    // Additional Methods
+    public Map<Integer, Vehicle> findWithMaintenances(Collection<Integer> idsVeiculos) {
 
-    private boolean validatePlate(String licensePlate) {
+        return vehicleRepository.findAllMaintenances(idsVeiculos);
+    }
 
-        return vehicleRepository.isValidPlate(licensePlate);
+    // Additional Methods
+
+    // Jittered so writers that collided once do not collide again on the retry
+    private static void backOff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(RETRY_BACKOFF_MILLIS * attempt + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Update interrompido!");
+        }
     }
 }
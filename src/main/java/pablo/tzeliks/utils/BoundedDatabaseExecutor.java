@@ -0,0 +1,63 @@
+package pablo.tzeliks.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+// Runs blocking repository calls on virtual threads, never more at once than the pool can serve.
+public class BoundedDatabaseExecutor implements AutoCloseable {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore inFlight;
+
+    public BoundedDatabaseExecutor(int maxInFlight) {
+
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("Max in-flight must be positive: " + maxInFlight);
+        }
+
+        this.inFlight = new Semaphore(maxInFlight, true);
+    }
+
+    public static BoundedDatabaseExecutor forPool(ConnectionPool pool) {
+        return new BoundedDatabaseExecutor(pool.getMaxSize());
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> work) {
+        return CompletableFuture.supplyAsync(() -> {
+
+            // Parking a virtual thread here is cheap and keeps callers from timing out on the pool instead
+            try {
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+
+            try {
+                return work.get();
+            } finally {
+                inFlight.release();
+            }
+        }, executor);
+    }
+
+    public CompletableFuture<Void> run(Runnable work) {
+        return submit(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public int availablePermits() {
+        return inFlight.availablePermits();
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
@@ -0,0 +1,248 @@
+package pablo.tzeliks.utils;
+
+import pablo.tzeliks.utils.metrics.QueryMetrics;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class ConnectionPool implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger("pablo.tzeliks.pool");
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final String url;
+    private final String user;
+    private final String pass;
+
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutNanos;
+    private final long validationIntervalNanos;
+    private final int statementCacheSize;
+
+    private final StatementCache.Counters statementCounters = new StatementCache.Counters();
+
+    // Idle connections, most recently returned first so hot connections stay warm
+    private final ConcurrentLinkedDeque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final Set<PooledConnection> all = ConcurrentHashMap.newKeySet();
+
+    // One permit per connection that may be handed out; bounds the pool at maxSize
+    private final Semaphore permits;
+    private final ScheduledExecutorService evictor;
+
+    private volatile QueryMetrics queryMetrics = QueryMetrics.NOOP;
+    private volatile boolean closed;
+
+    public ConnectionPool(String url, String user, String pass,
+                          int minSize, int maxSize,
+                          long borrowTimeoutMillis, long idleTimeoutMillis, long validationIntervalMillis,
+                          int statementCacheSize) {
+
+        if (minSize < 0 || maxSize <= 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+
+        this.url = url;
+        this.user = user;
+        this.pass = pass;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.validationIntervalNanos = TimeUnit.MILLISECONDS.toNanos(validationIntervalMillis);
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+
+        long period = Math.max(1, idleTimeoutMillis / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+
+        fillToMinimum();
+    }
+
+    public Connection borrow() throws SQLException {
+
+        long start = System.nanoTime();
+        boolean failed = true;
+
+        try {
+            Connection connection = acquire();
+            failed = false;
+            return connection;
+        } finally {
+            queryMetrics.recordConnectionWait(System.nanoTime() - start, failed);
+        }
+    }
+
+    void release(PooledConnection pooled) {
+
+        try {
+            if (closed || pooled.physical().isClosed()) {
+                destroy(pooled);
+            } else {
+                pooled.reset();
+                pooled.markReturned();
+                idle.offerFirst(pooled);
+            }
+        } catch (SQLException e) {
+            destroy(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int getTotalConnections() {
+        return all.size();
+    }
+
+    public int getIdleConnections() {
+        return idle.size();
+    }
+
+    public int getActiveConnections() {
+        return maxSize - permits.availablePermits();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public QueryMetrics getQueryMetrics() {
+        return queryMetrics;
+    }
+
+    public void setQueryMetrics(QueryMetrics queryMetrics) {
+        this.queryMetrics = queryMetrics == null ? QueryMetrics.NOOP : queryMetrics;
+    }
+
+    public StatementCache.Stats getStatementCacheStats() {
+        return statementCounters.snapshot();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled);
+        }
+    }
+
+    // Additional
+
+    private Connection acquire() throws SQLException {
+
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out after " + borrowTimeoutMillis + "ms waiting for a connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+
+        try {
+            PooledConnection pooled;
+
+            while ((pooled = idle.pollFirst()) != null) {
+
+                if (isUsable(pooled)) {
+                    return pooled.borrow();
+                }
+
+                destroy(pooled);
+            }
+
+            pooled = create();
+            return pooled.borrow();
+
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+
+        // Skip the round trip for connections that were in use a moment ago
+        if (System.nanoTime() - pooled.lastUsedNanos() < validationIntervalNanos) {
+            return true;
+        }
+
+        try {
+            return pooled.physical().isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection create() throws SQLException {
+        PooledConnection pooled = new PooledConnection(this, DriverManager.getConnection(url, user, pass),
+                statementCacheSize, statementCounters);
+        all.add(pooled);
+        return pooled;
+    }
+
+    private void destroy(PooledConnection pooled) {
+        all.remove(pooled);
+        pooled.closePhysical();
+    }
+
+    private void fillToMinimum() {
+        try {
+            while (!closed && all.size() < minSize) {
+                PooledConnection pooled = create();
+                pooled.markReturned();
+                idle.offerLast(pooled);
+            }
+        } catch (SQLException e) {
+            LOG.log(Level.WARNING, "Failed to pre-fill the connection pool", e);
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.nanoTime();
+
+        // Oldest idle connections sit at the tail
+        Iterator<PooledConnection> it = idle.descendingIterator();
+
+        while (it.hasNext() && all.size() > minSize) {
+            PooledConnection pooled = it.next();
+
+            if (now - pooled.lastUsedNanos() < idleTimeoutNanos) {
+                break;
+            }
+
+            // Only the thread that wins the removal may close it; a borrower may have taken it already
+            if (idle.removeLastOccurrence(pooled)) {
+                destroy(pooled);
+            }
+        }
+
+        fillToMinimum();
+    }
+}
@@ -0,0 +1,240 @@
+package pablo.tzeliks.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.StringJoiner;
+
+// Connection settings resolved from database.properties, then environment variables, then -D system properties.
+public final class DatabaseConfig {
+
+    public static final String PREFIX = "simple_db.";
+
+    private static final String RESOURCE = "database.properties";
+    private static final String DRIVER_PREFIX = PREFIX + "driver.";
+
+    // Environment variables cannot carry camelCase driver flags, so they come in as one "key=value&key=value" list
+    private static final String DRIVER_PROPERTIES_KEY = PREFIX + "driver_properties";
+
+    private static final List<String> KEYS = List.of(
+            "url", "user", "password", "replica.urls", "profile",
+            "pool.min_size", "pool.max_size", "pool.borrow_timeout_millis", "pool.idle_timeout_millis",
+            "pool.validation_interval_millis", "pool.statement_cache_size",
+            "metrics.enabled", "slow_query_threshold_millis", "batch_size", "streaming_fetch_size", "driver_properties");
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final List<String> replicaUrls;
+    private final DatabaseProfile profile;
+    private final Map<String, String> driverProperties;
+
+    private final int poolMinSize;
+    private final int poolMaxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long validationIntervalMillis;
+    private final int statementCacheSize;
+    private final boolean metricsEnabled;
+    private final long slowQueryThresholdMillis;
+    private final int batchSize;
+    private final int streamingFetchSize;
+
+    private DatabaseConfig(Map<String, String> settings) {
+        this.url = settings.getOrDefault(PREFIX + "url", "jdbc:mysql://localhost:3306/simple_db");
+        this.user = settings.getOrDefault(PREFIX + "user", "db_user");
+        this.password = settings.getOrDefault(PREFIX + "password", "db_pass");
+        this.profile = DatabaseProfile.fromName(settings.getOrDefault(PREFIX + "profile", DatabaseProfile.OLTP.name()));
+
+        List<String> replicas = new ArrayList<>();
+
+        for (String replica : settings.getOrDefault(PREFIX + "replica.urls", "").split(",")) {
+            if (!replica.isBlank()) {
+                replicas.add(replica.strip());
+            }
+        }
+
+        this.replicaUrls = List.copyOf(replicas);
+
+        Map<String, String> driver = new LinkedHashMap<>(profile.getDriverProperties());
+
+        for (String pair : settings.getOrDefault(DRIVER_PROPERTIES_KEY, "").split("&")) {
+            int eq = pair.indexOf('=');
+
+            if (eq > 0) {
+                driver.put(pair.substring(0, eq).strip(), pair.substring(eq + 1).strip());
+            }
+        }
+
+        settings.forEach((key, value) -> {
+            if (key.startsWith(DRIVER_PREFIX)) {
+                driver.put(key.substring(DRIVER_PREFIX.length()), value.strip());
+            }
+        });
+
+        this.driverProperties = Collections.unmodifiableMap(driver);
+
+        this.poolMinSize = intSetting(settings, "pool.min_size", 2);
+        this.poolMaxSize = intSetting(settings, "pool.max_size", 10);
+        this.borrowTimeoutMillis = longSetting(settings, "pool.borrow_timeout_millis", 5_000);
+        this.idleTimeoutMillis = longSetting(settings, "pool.idle_timeout_millis", 600_000);
+        this.validationIntervalMillis = longSetting(settings, "pool.validation_interval_millis", 30_000);
+        this.statementCacheSize = intSetting(settings, "pool.statement_cache_size", 64);
+        this.metricsEnabled = Boolean.parseBoolean(settings.getOrDefault(PREFIX + "metrics.enabled", "false").strip());
+        this.slowQueryThresholdMillis = longSetting(settings, "slow_query_threshold_millis", 200);
+        this.batchSize = intSetting(settings, "batch_size", profile.getBatchSize());
+        this.streamingFetchSize = intSetting(settings, "streaming_fetch_size", profile.getStreamingFetchSize());
+
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+    }
+
+    public static DatabaseConfig load() {
+        Map<String, String> settings = new HashMap<>();
+
+        try (InputStream in = DatabaseConfig.class.getClassLoader().getResourceAsStream(RESOURCE)) {
+            if (in != null) {
+                Properties file = new Properties();
+                file.load(in);
+                file.stringPropertyNames().forEach(key -> settings.put(key, file.getProperty(key)));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read " + RESOURCE, e);
+        }
+
+        for (String key : KEYS) {
+            String value = System.getenv(envName(key));
+
+            if (value != null) {
+                settings.put(PREFIX + key, value);
+            }
+        }
+
+        Properties system = System.getProperties();
+        system.stringPropertyNames().stream()
+                .filter(key -> key.startsWith(PREFIX))
+                .forEach(key -> settings.put(key, system.getProperty(key)));
+
+        return new DatabaseConfig(settings);
+    }
+
+    // Keys are the full "simple_db.*" names; anything missing falls back to the defaults
+    public static DatabaseConfig from(Map<String, String> settings) {
+        return new DatabaseConfig(settings);
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public List<String> getReplicaUrls() {
+        return replicaUrls;
+    }
+
+    public DatabaseProfile getProfile() {
+        return profile;
+    }
+
+    public Map<String, String> getDriverProperties() {
+        return driverProperties;
+    }
+
+    public int getPoolMinSize() {
+        return poolMinSize;
+    }
+
+    public int getPoolMaxSize() {
+        return poolMaxSize;
+    }
+
+    public long getBorrowTimeoutMillis() {
+        return borrowTimeoutMillis;
+    }
+
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+
+    public long getValidationIntervalMillis() {
+        return validationIntervalMillis;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    // Off by default: instrumentation wraps every statement and result set the pool hands out
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    public long getSlowQueryThresholdMillis() {
+        return slowQueryThresholdMillis;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getStreamingFetchSize() {
+        return streamingFetchSize;
+    }
+
+    // Appends the driver flags to a base URL, keeping any query string it already has
+    public String jdbcUrl(String baseUrl) {
+        StringJoiner query = new StringJoiner("&");
+        driverProperties.forEach((key, value) -> query.add(key + "=" + value));
+
+        if (query.length() == 0) {
+            return baseUrl;
+        }
+
+        return baseUrl + (baseUrl.contains("?") ? "&" : "?") + query;
+    }
+
+    @Override
+    public String toString() {
+        // Never print the password
+        return "DatabaseConfig[url=" + url + ", user=" + user + ", replicas=" + replicaUrls
+                + ", profile=" + profile + ", pool=" + poolMinSize + ".." + poolMaxSize + "]";
+    }
+
+    // Additional
+
+    private static String envName(String key) {
+        return (PREFIX + key).toUpperCase().replace('.', '_');
+    }
+
+    private static int intSetting(Map<String, String> settings, String key, int defaultValue) {
+        return Math.toIntExact(longSetting(settings, key, defaultValue));
+    }
+
+    private static long longSetting(Map<String, String> settings, String key, long defaultValue) {
+        String value = settings.get(PREFIX + key);
+
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+
+        try {
+            return Long.parseLong(value.strip());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + PREFIX + key + ": " + value, e);
+        }
+    }
+}
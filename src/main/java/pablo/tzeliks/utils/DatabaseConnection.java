@@ -1,31 +1,219 @@
 package pablo.tzeliks.utils;
 
+import pablo.tzeliks.utils.metrics.InMemoryQueryMetrics;
+import pablo.tzeliks.utils.metrics.QueryMetrics;
+
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
 
 public class DatabaseConnection {
 
-    private static final String URL = "jdbc:mysql://localhost:3306/simple_db";
-    private static final String USER = "db_user";
-    private static final String PASS = "db_pass";
+    private static final String METRICS_MBEAN_NAME = "pablo.tzeliks:type=QueryMetrics";
+    private static final Logger REPLICA_LOG = Logger.getLogger("pablo.tzeliks.replica");
+
+    private record Pools(ConnectionPool primary, List<ConnectionPool> replicas) {
+    }
+
+    // Depth of onPrimary(...) scopes on this thread; while positive, reads stay on the primary
+    private static final ThreadLocal<int[]> PRIMARY_PINS = ThreadLocal.withInitial(() -> new int[1]);
+    private static final AtomicInteger nextReplica = new AtomicInteger();
+
+    // Replicas whose last borrow failed; only the transitions in and out of this set are logged
+    private static final Set<ConnectionPool> unavailableReplicas = ConcurrentHashMap.newKeySet();
 
-    private static Connection connection;
+    private static volatile DatabaseConfig config;
+    private static volatile Pools pools;
 
+    // Closing the returned connection gives it back to the pool; inside a TransactionTemplate block
+    // this is the transaction's connection and closing it does nothing. Never returns null
     public static Connection getConnection() {
+        Connection bound = TransactionTemplate.boundConnection();
+
+        if (bound != null) {
+            return bound;
+        }
+
         try {
-            if (connection == null || connection.isClosed()) {
-                connection = DriverManager.getConnection(URL, USER, PASS);
-            }
+            return getPool().borrow();
+        } catch (SQLException e) {
+            // A borrow timeout is the bounded pool pushing back under load; callers see it like any other query failure
+            throw new RuntimeException("An error Ocurred: " + e.getMessage(), e);
+        }
+    }
+
+    // For read-only work; served by a replica unless none is configured or the thread is pinned to the primary
+    public static Connection getReadConnection() {
+        Connection bound = TransactionTemplate.boundConnection();
+
+        if (bound != null) {
+            return bound;
+        }
+
+        Pools current = getPools();
+
+        if (current.replicas().isEmpty() || PRIMARY_PINS.get()[0] > 0) {
+            return getConnection();
+        }
+
+        ConnectionPool replica = pickReplica(current.replicas());
 
-            System.out.println("Connected to the database successfully.");
-            return connection;
+        try {
+            Connection conn = replica.borrow();
+
+            if (!unavailableReplicas.isEmpty() && unavailableReplicas.remove(replica)) {
+                REPLICA_LOG.info("Replica available again, reads are back on it");
+            }
 
+            return conn;
         } catch (SQLException e) {
-            System.out.println("Failed to connect to the database. Check: " + e.getMessage());
+            // An unreachable or saturated replica should not take reads down with it
+            replica.getQueryMetrics().recordReplicaFallback();
+
+            if (unavailableReplicas.add(replica)) {
+                REPLICA_LOG.warning("Replica unavailable, reading from the primary until it recovers. Check: " + e.getMessage());
+            }
+
+            return getConnection();
+        }
+    }
+
+    // Runs work with every read on this thread routed to the primary, e.g. to read back its own writes
+    public static <T> T onPrimary(Supplier<T> work) {
+        int[] pins = PRIMARY_PINS.get();
+        pins[0]++;
+
+        try {
+            return work.get();
+        } finally {
+            if (--pins[0] == 0) {
+                PRIMARY_PINS.remove();
+            }
+        }
+    }
+
+    public static DatabaseConfig getConfig() {
+        DatabaseConfig current = config;
+
+        if (current == null) {
+            synchronized (DatabaseConnection.class) {
+                current = config;
+
+                if (current == null) {
+                    current = DatabaseConfig.load();
+                    config = current;
+                }
+            }
+        }
 
-            e.printStackTrace();
-            return null;
+        return current;
+    }
+
+    // Swaps the configuration at runtime; open pools are closed and rebuilt from it on the next borrow
+    public static synchronized void configure(DatabaseConfig newConfig) {
+        shutdown();
+        config = newConfig;
+    }
+
+    public static ConnectionPool getPool() {
+        return getPools().primary();
+    }
+
+    public static List<ConnectionPool> getReplicaPools() {
+        return getPools().replicas();
+    }
+
+    public static QueryMetrics getQueryMetrics() {
+        return getPool().getQueryMetrics();
+    }
+
+    // Turns instrumentation on at runtime, or plugs in another backend; QueryMetrics.NOOP switches it off again
+    public static void setQueryMetrics(QueryMetrics queryMetrics) {
+        Pools current = getPools();
+
+        current.primary().setQueryMetrics(queryMetrics);
+        current.replicas().forEach(replica -> replica.setQueryMetrics(queryMetrics));
+    }
+
+    public static synchronized void shutdown() {
+        if (pools != null) {
+            pools.primary().close();
+            pools.replicas().forEach(ConnectionPool::close);
+            pools = null;
+            unavailableReplicas.clear();
+        }
+    }
+
+    // Additional
+
+    private static Pools getPools() {
+        Pools current = pools;
+
+        if (current == null) {
+            synchronized (DatabaseConnection.class) {
+                current = pools;
+
+                if (current == null) {
+                    DatabaseConfig settings = getConfig();
+                    QueryMetrics metrics = defaultMetrics(settings);
+
+                    ConnectionPool primary = createPool(settings, settings.getUrl());
+                    primary.setQueryMetrics(metrics);
+
+                    List<ConnectionPool> replicas = new ArrayList<>();
+
+                    for (String replicaUrl : settings.getReplicaUrls()) {
+                        ConnectionPool replica = createPool(settings, replicaUrl);
+                        replica.setQueryMetrics(metrics);
+                        replicas.add(replica);
+                    }
+
+                    current = new Pools(primary, List.copyOf(replicas));
+                    pools = current;
+                }
+            }
         }
+
+        return current;
+    }
+
+    private static ConnectionPool createPool(DatabaseConfig settings, String url) {
+        return new ConnectionPool(settings.jdbcUrl(url), settings.getUser(), settings.getPassword(),
+                settings.getPoolMinSize(), settings.getPoolMaxSize(),
+                settings.getBorrowTimeoutMillis(), settings.getIdleTimeoutMillis(),
+                settings.getValidationIntervalMillis(), settings.getStatementCacheSize());
+    }
+
+    // Least-loaded replica; rotating the starting point spreads ties round-robin
+    private static ConnectionPool pickReplica(List<ConnectionPool> replicas) {
+        int size = replicas.size();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), size);
+        ConnectionPool best = replicas.get(start);
+
+        for (int i = 1; i < size; i++) {
+            ConnectionPool candidate = replicas.get((start + i) % size);
+
+            if (candidate.getActiveConnections() < best.getActiveConnections()) {
+                best = candidate;
+            }
+        }
+
+        return best;
+    }
+
+    private static QueryMetrics defaultMetrics(DatabaseConfig settings) {
+        if (!settings.isMetricsEnabled()) {
+            return QueryMetrics.NOOP;
+        }
+
+        InMemoryQueryMetrics metrics = new InMemoryQueryMetrics(settings.getSlowQueryThresholdMillis());
+        metrics.registerMBean(METRICS_MBEAN_NAME);
+        return metrics;
     }
 }
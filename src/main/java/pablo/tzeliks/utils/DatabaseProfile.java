@@ -0,0 +1,68 @@
+package pablo.tzeliks.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Named bundles of Connector/J flags that only make sense together; explicit driver.* settings still win.
+public enum DatabaseProfile {
+
+    // Short transactions: server-side statements kept prepared by the pool's StatementCache, fail fast on a dead socket.
+    // The driver's own cachePrepStmts stays off; two caches would hold every statement twice per connection.
+    OLTP(1_000, Integer.MIN_VALUE, Map.of(
+            "useServerPrepStmts", "true",
+            "rewriteBatchedStatements", "true",
+            "useLocalSessionState", "true",
+            "connectTimeout", "3000",
+            "socketTimeout", "30000")),
+
+    // Large batches: client-side statements let the driver rewrite a batch into multi-row INSERTs
+    BULK_IMPORT(5_000, Integer.MIN_VALUE, Map.of(
+            "useServerPrepStmts", "false",
+            "rewriteBatchedStatements", "true",
+            "useLocalSessionState", "true",
+            "connectTimeout", "3000",
+            "socketTimeout", "300000")),
+
+    // Long scans: a server-side cursor hands rows over in fetch-size blocks instead of one by one
+    ANALYTICS_STREAMING(1_000, 1_000, Map.of(
+            "useServerPrepStmts", "true",
+            "useCursorFetch", "true",
+            "defaultFetchSize", "1000",
+            "netTimeoutForStreamingResults", "3600",
+            "connectTimeout", "3000",
+            "socketTimeout", "0"));
+
+    private final int batchSize;
+    private final int streamingFetchSize;
+    private final Map<String, String> driverProperties;
+
+    DatabaseProfile(int batchSize, int streamingFetchSize, Map<String, String> driverProperties) {
+        this.batchSize = batchSize;
+        this.streamingFetchSize = streamingFetchSize;
+        this.driverProperties = driverProperties;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    // Integer.MIN_VALUE makes Connector/J stream row by row; a positive value pairs with useCursorFetch
+    public int getStreamingFetchSize() {
+        return streamingFetchSize;
+    }
+
+    public Map<String, String> getDriverProperties() {
+        // Sorted so the generated JDBC URL is stable between runs
+        Map<String, String> sorted = new LinkedHashMap<>();
+        driverProperties.keySet().stream().sorted().forEach(key -> sorted.put(key, driverProperties.get(key)));
+        return sorted;
+    }
+
+    public static DatabaseProfile fromName(String name) {
+        try {
+            return valueOf(name.strip().toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown database profile: " + name, e);
+        }
+    }
+}
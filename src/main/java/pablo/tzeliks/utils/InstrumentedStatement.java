@@ -0,0 +1,379 @@
+package pablo.tzeliks.utils;
+
+import pablo.tzeliks.utils.metrics.QueryMetrics;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+
+// Delegating Statement that times the execute* calls and counts the rows their result sets hand out.
+// Written out by hand instead of as a Proxy, so every other call is a plain virtual call with no reflection.
+class InstrumentedStatement implements Statement {
+
+    private static final String BATCH = "<batch>";
+
+    interface Execution<T> {
+        T run() throws SQLException;
+    }
+
+    private final Statement statement;
+    private final String sql;
+    private final QueryMetrics metrics;
+
+    // Labels the result set handed out by getResultSet(); plain Statements carry their SQL in each execute call
+    private String lastSql;
+
+    InstrumentedStatement(Statement statement, String sql, QueryMetrics metrics) {
+        this.statement = statement;
+        this.sql = sql;
+        this.metrics = metrics;
+        this.lastSql = sql != null ? sql : BATCH;
+    }
+
+    static Statement wrap(Statement statement, QueryMetrics metrics) {
+        return new InstrumentedStatement(statement, null, metrics);
+    }
+
+    static PreparedStatement wrap(PreparedStatement statement, String sql, QueryMetrics metrics) {
+        return new InstrumentedPreparedStatement(statement, sql, metrics);
+    }
+
+    @Override
+    public ResultSet executeQuery(String sql) throws SQLException {
+        return countRows(timed(sql, () -> statement.executeQuery(sql)));
+    }
+
+    @Override
+    public int executeUpdate(String sql) throws SQLException {
+        return timed(sql, () -> statement.executeUpdate(sql));
+    }
+
+    @Override
+    public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        return timed(sql, () -> statement.executeUpdate(sql, autoGeneratedKeys));
+    }
+
+    @Override
+    public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        return timed(sql, () -> statement.executeUpdate(sql, columnIndexes));
+    }
+
+    @Override
+    public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+        return timed(sql, () -> statement.executeUpdate(sql, columnNames));
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql) throws SQLException {
+        return timed(sql, () -> statement.executeLargeUpdate(sql));
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+        return timed(sql, () -> statement.executeLargeUpdate(sql, autoGeneratedKeys));
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, int[] columnIndexes) throws SQLException {
+        return timed(sql, () -> statement.executeLargeUpdate(sql, columnIndexes));
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, String[] columnNames) throws SQLException {
+        return timed(sql, () -> statement.executeLargeUpdate(sql, columnNames));
+    }
+
+    @Override
+    public boolean execute(String sql) throws SQLException {
+        return timed(sql, () -> statement.execute(sql));
+    }
+
+    @Override
+    public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+        return timed(sql, () -> statement.execute(sql, autoGeneratedKeys));
+    }
+
+    @Override
+    public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+        return timed(sql, () -> statement.execute(sql, columnIndexes));
+    }
+
+    @Override
+    public boolean execute(String sql, String[] columnNames) throws SQLException {
+        return timed(sql, () -> statement.execute(sql, columnNames));
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        return timed(sql != null ? sql : BATCH, statement::executeBatch);
+    }
+
+    @Override
+    public long[] executeLargeBatch() throws SQLException {
+        return timed(sql != null ? sql : BATCH, statement::executeLargeBatch);
+    }
+
+    @Override
+    public ResultSet getResultSet() throws SQLException {
+        return countRows(statement.getResultSet());
+    }
+
+    // Everything below is plain delegation
+
+    @Override
+    public void close() throws SQLException {
+        statement.close();
+    }
+
+    @Override
+    public int getMaxFieldSize() throws SQLException {
+        return statement.getMaxFieldSize();
+    }
+
+    @Override
+    public void setMaxFieldSize(int max) throws SQLException {
+        statement.setMaxFieldSize(max);
+    }
+
+    @Override
+    public int getMaxRows() throws SQLException {
+        return statement.getMaxRows();
+    }
+
+    @Override
+    public void setMaxRows(int max) throws SQLException {
+        statement.setMaxRows(max);
+    }
+
+    @Override
+    public void setEscapeProcessing(boolean enable) throws SQLException {
+        statement.setEscapeProcessing(enable);
+    }
+
+    @Override
+    public int getQueryTimeout() throws SQLException {
+        return statement.getQueryTimeout();
+    }
+
+    @Override
+    public void setQueryTimeout(int seconds) throws SQLException {
+        statement.setQueryTimeout(seconds);
+    }
+
+    @Override
+    public void cancel() throws SQLException {
+        statement.cancel();
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        return statement.getWarnings();
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+        statement.clearWarnings();
+    }
+
+    @Override
+    public void setCursorName(String name) throws SQLException {
+        statement.setCursorName(name);
+    }
+
+    @Override
+    public int getUpdateCount() throws SQLException {
+        return statement.getUpdateCount();
+    }
+
+    @Override
+    public boolean getMoreResults() throws SQLException {
+        return statement.getMoreResults();
+    }
+
+    @Override
+    public void setFetchDirection(int direction) throws SQLException {
+        statement.setFetchDirection(direction);
+    }
+
+    @Override
+    public int getFetchDirection() throws SQLException {
+        return statement.getFetchDirection();
+    }
+
+    @Override
+    public void setFetchSize(int rows) throws SQLException {
+        statement.setFetchSize(rows);
+    }
+
+    @Override
+    public int getFetchSize() throws SQLException {
+        return statement.getFetchSize();
+    }
+
+    @Override
+    public int getResultSetConcurrency() throws SQLException {
+        return statement.getResultSetConcurrency();
+    }
+
+    @Override
+    public int getResultSetType() throws SQLException {
+        return statement.getResultSetType();
+    }
+
+    @Override
+    public void addBatch(String sql) throws SQLException {
+        statement.addBatch(sql);
+    }
+
+    @Override
+    public void clearBatch() throws SQLException {
+        statement.clearBatch();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return statement.getConnection();
+    }
+
+    @Override
+    public boolean getMoreResults(int current) throws SQLException {
+        return statement.getMoreResults(current);
+    }
+
+    @Override
+    public ResultSet getGeneratedKeys() throws SQLException {
+        return statement.getGeneratedKeys();
+    }
+
+    @Override
+    public int getResultSetHoldability() throws SQLException {
+        return statement.getResultSetHoldability();
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return statement.isClosed();
+    }
+
+    @Override
+    public void setPoolable(boolean poolable) throws SQLException {
+        statement.setPoolable(poolable);
+    }
+
+    @Override
+    public boolean isPoolable() throws SQLException {
+        return statement.isPoolable();
+    }
+
+    @Override
+    public void closeOnCompletion() throws SQLException {
+        statement.closeOnCompletion();
+    }
+
+    @Override
+    public boolean isCloseOnCompletion() throws SQLException {
+        return statement.isCloseOnCompletion();
+    }
+
+    @Override
+    public long getLargeUpdateCount() throws SQLException {
+        return statement.getLargeUpdateCount();
+    }
+
+    @Override
+    public void setLargeMaxRows(long max) throws SQLException {
+        statement.setLargeMaxRows(max);
+    }
+
+    @Override
+    public long getLargeMaxRows() throws SQLException {
+        return statement.getLargeMaxRows();
+    }
+
+    @Override
+    public String enquoteLiteral(String val) throws SQLException {
+        return statement.enquoteLiteral(val);
+    }
+
+    @Override
+    public String enquoteIdentifier(String identifier, boolean alwaysQuote) throws SQLException {
+        return statement.enquoteIdentifier(identifier, alwaysQuote);
+    }
+
+    @Override
+    public boolean isSimpleIdentifier(String identifier) throws SQLException {
+        return statement.isSimpleIdentifier(identifier);
+    }
+
+    @Override
+    public String enquoteNCharLiteral(String val) throws SQLException {
+        return statement.enquoteNCharLiteral(val);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? iface.cast(this) : statement.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || statement.isWrapperFor(iface);
+    }
+
+    // Additional
+
+    <T> T timed(String query, Execution<T> execution) throws SQLException {
+        lastSql = query;
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        T result = null;
+
+        try {
+            result = execution.run();
+            failed = false;
+            return result;
+        } finally {
+            metrics.recordExecution(query, System.nanoTime() - start, rowsAffected(result), failed);
+        }
+    }
+
+    ResultSet countRows(ResultSet rs) {
+        return rs == null ? null : new CountingResultSet(rs, this, lastSql, metrics);
+    }
+
+    private static long rowsAffected(Object result) {
+        if (result instanceof Integer n) {
+            return n;
+        }
+
+        if (result instanceof Long n) {
+            return n;
+        }
+
+        if (result instanceof int[] counts) {
+            long total = 0;
+
+            for (int count : counts) {
+                total += Math.max(count, 0);
+            }
+
+            return total;
+        }
+
+        if (result instanceof long[] counts) {
+            long total = 0;
+
+            for (long count : counts) {
+                total += Math.max(count, 0);
+            }
+
+            return total;
+        }
+
+        return -1;
+    }
+}
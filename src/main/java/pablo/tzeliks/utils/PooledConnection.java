@@ -0,0 +1,93 @@
+package pablo.tzeliks.utils;
+
+import pablo.tzeliks.utils.metrics.QueryMetrics;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Wraps a physical connection; every borrow gets its own handle whose close() hands the connection back to the pool.
+class PooledConnection {
+
+    private final ConnectionPool pool;
+    private final Connection physical;
+    private final StatementCache statementCache;
+
+    private volatile long lastUsedNanos;
+
+    PooledConnection(ConnectionPool pool, Connection physical, int statementCacheSize, StatementCache.Counters counters) {
+        this.pool = pool;
+        this.physical = physical;
+        this.statementCache = statementCacheSize > 0
+                ? new StatementCache(physical, statementCacheSize, counters)
+                : null;
+        this.lastUsedNanos = System.nanoTime();
+    }
+
+    Connection physical() {
+        return physical;
+    }
+
+    long lastUsedNanos() {
+        return lastUsedNanos;
+    }
+
+    // A fresh handle per borrower, so a handle kept after close() can never reach the next borrower's session
+    Connection borrow() {
+        return new PooledConnectionHandle(this, physical);
+    }
+
+    void markReturned() {
+        lastUsedNanos = System.nanoTime();
+    }
+
+    // Undo whatever the borrower changed so the next caller gets a clean session.
+    void reset() throws SQLException {
+        if (!physical.getAutoCommit()) {
+            physical.rollback();
+            physical.setAutoCommit(true);
+        }
+
+        if (physical.isReadOnly()) {
+            physical.setReadOnly(false);
+        }
+
+        physical.clearWarnings();
+    }
+
+    void closePhysical() {
+        if (statementCache != null) {
+            statementCache.closeAll();
+        }
+
+        try {
+            physical.close();
+        } catch (SQLException ignored) {
+            // Nothing useful to do with a connection we are throwing away
+        }
+    }
+
+    void release() {
+        pool.release(this);
+    }
+
+    // Only prepareStatement(sql) and prepareStatement(sql, autoGeneratedKeys) go through the cache
+    PreparedStatement prepare(Connection handle, Connection physical, String sql, int autoGeneratedKeys) throws SQLException {
+        if (statementCache != null) {
+            return instrument(statementCache.prepare(sql, autoGeneratedKeys, handle), sql);
+        }
+
+        return instrument(physical.prepareStatement(sql, autoGeneratedKeys), sql);
+    }
+
+    PreparedStatement instrument(PreparedStatement statement, String sql) {
+        QueryMetrics metrics = pool.getQueryMetrics();
+        return metrics == QueryMetrics.NOOP ? statement : InstrumentedStatement.wrap(statement, sql, metrics);
+    }
+
+    Statement instrument(Statement statement) {
+        QueryMetrics metrics = pool.getQueryMetrics();
+        return metrics == QueryMetrics.NOOP ? statement : InstrumentedStatement.wrap(statement, metrics);
+    }
+}
@@ -0,0 +1,150 @@
+package pablo.tzeliks.utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Per-connection LRU of prepared statements; close() on a cached statement parks it for the next caller.
+public class StatementCache {
+
+    public record Stats(long hits, long misses, long evictions) {
+
+        public double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0.0 : (double) hits / requests;
+        }
+    }
+
+    // Shared by every connection of a pool so the hit rate is reported pool-wide
+    static class Counters {
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder evictions = new LongAdder();
+
+        Stats snapshot() {
+            return new Stats(hits.sum(), misses.sum(), evictions.sum());
+        }
+    }
+
+    private record Key(String sql, int autoGeneratedKeys) {
+    }
+
+    private final Connection physical;
+    private final Counters counters;
+    private final Map<Key, CachedStatement> statements;
+
+    StatementCache(Connection physical, int maxSize, Counters counters) {
+        this.physical = physical;
+        this.counters = counters;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CachedStatement> eldest) {
+
+                if (size() > maxSize) {
+                    counters.evictions.increment();
+                    eldest.getValue().evict();
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    // owner is the borrower's handle, reported by getConnection() until the statement is closed
+    synchronized PreparedStatement prepare(String sql, int autoGeneratedKeys, Connection owner) throws SQLException {
+
+        Key key = new Key(sql, autoGeneratedKeys);
+        CachedStatement cached = statements.get(key);
+
+        if (cached != null && !cached.inUse) {
+            counters.hits.increment();
+            return cached.checkOut(owner);
+        }
+
+        counters.misses.increment();
+
+        CachedStatement created = new CachedStatement(key, physical.prepareStatement(sql, autoGeneratedKeys));
+
+        // Leave a busy entry alone; the second statement is simply closed when the caller is done
+        if (cached == null) {
+            statements.put(key, created);
+        } else {
+            created.evicted = true;
+        }
+
+        return created.checkOut(owner);
+    }
+
+    synchronized void closeAll() {
+        for (CachedStatement cached : statements.values()) {
+            cached.closePhysical();
+        }
+
+        statements.clear();
+    }
+
+    private class CachedStatement {
+
+        private final Key key;
+        private final PreparedStatement statement;
+
+        private boolean inUse;
+        private boolean evicted;
+
+        CachedStatement(Key key, PreparedStatement statement) {
+            this.key = key;
+            this.statement = statement;
+        }
+
+        // A fresh handle per checkout, so one kept after close() can never reach the next borrower's parameters
+        PreparedStatement checkOut(Connection owner) {
+            inUse = true;
+            return new CachedPreparedStatement(statement, owner, this::release);
+        }
+
+        void evict() {
+            evicted = true;
+
+            if (!inUse) {
+                closePhysical();
+            }
+        }
+
+        void closePhysical() {
+            try {
+                statement.close();
+            } catch (SQLException ignored) {
+                // The statement is being discarded either way
+            }
+        }
+
+        private void release() {
+            synchronized (StatementCache.this) {
+                if (!inUse) {
+                    return;
+                }
+
+                inUse = false;
+
+                if (evicted) {
+                    closePhysical();
+                    return;
+                }
+
+                try {
+                    statement.clearParameters();
+                    statement.clearBatch();
+                } catch (SQLException e) {
+                    // A statement that cannot be reset is not worth keeping
+                    statements.remove(key);
+                    closePhysical();
+                }
+            }
+        }
+    }
+}
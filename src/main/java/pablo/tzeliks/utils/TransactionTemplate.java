@@ -0,0 +1,221 @@
+package pablo.tzeliks.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Binds one connection to the calling thread for the length of a block; every repository call inside it
+// gets that connection from DatabaseConnection and so joins the same transaction.
+public class TransactionTemplate {
+
+    // Keep whatever isolation level the connection already has
+    public static final int DEFAULT_ISOLATION = -1;
+
+    @FunctionalInterface
+    public interface TransactionCallback<T> {
+        T doInTransaction() throws SQLException;
+    }
+
+    private static final ThreadLocal<Binding> CURRENT = new ThreadLocal<>();
+
+    private final int isolationLevel;
+    private final boolean readOnly;
+
+    public TransactionTemplate() {
+        this(DEFAULT_ISOLATION, false);
+    }
+
+    // isolationLevel is one of the Connection.TRANSACTION_* constants or DEFAULT_ISOLATION
+    public TransactionTemplate(int isolationLevel, boolean readOnly) {
+        this.isolationLevel = isolationLevel;
+        this.readOnly = readOnly;
+    }
+
+    public static TransactionTemplate readOnly() {
+        return new TransactionTemplate(DEFAULT_ISOLATION, true);
+    }
+
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    // Runs the action once the current transaction commits, or right away when none is active; nothing runs on rollback
+    public static void afterCommit(Runnable action) {
+        Binding binding = CURRENT.get();
+
+        if (binding == null) {
+            action.run();
+        } else {
+            binding.afterCommit.add(action);
+        }
+    }
+
+    // The connection of the transaction running on this thread, or null outside of one
+    static Connection boundConnection() {
+        Binding binding = CURRENT.get();
+        return binding == null ? null : binding.view;
+    }
+
+    // Commits when the block returns and rolls back when it throws. A nested call joins the outer transaction,
+    // keeping the outer isolation level and read-only flag.
+    public <T> T execute(TransactionCallback<T> work) {
+
+        if (isActive()) {
+            return invoke(work);
+        }
+
+        // Read-only blocks may run on a replica; anything that writes stays on the primary
+        Connection conn = readOnly ? DatabaseConnection.getReadConnection() : DatabaseConnection.getConnection();
+
+        Binding binding = new Binding(conn);
+        int previousIsolation = DEFAULT_ISOLATION;
+
+        try {
+            if (isolationLevel != DEFAULT_ISOLATION) {
+                previousIsolation = conn.getTransactionIsolation();
+                conn.setTransactionIsolation(isolationLevel);
+            }
+
+            if (readOnly) {
+                conn.setReadOnly(true);
+            }
+
+            conn.setAutoCommit(false);
+            CURRENT.set(binding);
+
+            T result;
+
+            try {
+                result = invoke(work);
+            } catch (RuntimeException | Error e) {
+                rollbackQuietly(conn, e);
+                throw e;
+            }
+
+            if (binding.rollbackOnly) {
+                conn.rollback();
+                throw new IllegalStateException("Transaction rolled back: a repository call inside it failed");
+            }
+
+            conn.commit();
+            CURRENT.remove();
+            binding.afterCommit.forEach(Runnable::run);
+
+            return result;
+
+        } catch (SQLException e) {
+            rollbackQuietly(conn, e);
+            throw new RuntimeException("An error Ocurred: " + e.getMessage(), e);
+
+        } finally {
+            CURRENT.remove();
+            binding.active = false;
+            restoreIsolation(conn, previousIsolation);
+
+            try {
+                // Returning it to the pool restores auto-commit and clears the read-only flag
+                conn.close();
+            } catch (SQLException ignored) {
+                // The pool discards connections it cannot reset
+            }
+        }
+    }
+
+    public void run(Runnable work) {
+        execute(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    // Additional
+
+    private static <T> T invoke(TransactionCallback<T> work) {
+        try {
+            return work.doInTransaction();
+        } catch (SQLException e) {
+            throw new RuntimeException("An error Ocurred: " + e.getMessage(), e);
+        }
+    }
+
+    private static void rollbackQuietly(Connection conn, Throwable cause) {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    private static void restoreIsolation(Connection conn, int previousIsolation) {
+        if (previousIsolation == DEFAULT_ISOLATION) {
+            return;
+        }
+
+        try {
+            conn.setTransactionIsolation(previousIsolation);
+        } catch (SQLException ignored) {
+            // Worst case the next borrower inherits the level; the connection is still usable
+        }
+    }
+
+    // What repositories see while a transaction is bound: their own close/commit/rollback calls must not end it
+    private static class Binding implements InvocationHandler {
+
+        private final Connection target;
+        private final Connection view;
+
+        private final List<Runnable> afterCommit = new ArrayList<>();
+
+        private volatile boolean active = true;
+        private boolean rollbackOnly;
+
+        Binding(Connection target) {
+            this.target = target;
+            this.view = (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    this
+            );
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+            switch (method.getName()) {
+                case "close":
+                case "commit":
+                case "setAutoCommit":
+                    // The template owns the transaction boundaries
+                    return null;
+                case "rollback":
+                    if (args == null) {
+                        // A participant gave up; the whole unit of work goes with it
+                        rollbackOnly = true;
+                        return null;
+                    }
+                    break;
+                case "isClosed":
+                    return !active || target.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "BoundConnection[" + target + "]";
+                default:
+                    break;
+            }
+
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
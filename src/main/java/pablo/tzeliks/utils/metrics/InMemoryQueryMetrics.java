@@ -0,0 +1,199 @@
+package pablo.tzeliks.utils.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+// QueryMetrics used when simple_db.metrics.enabled is set: per-statement histograms kept in memory, slow queries logged, readable over JMX.
+public class InMemoryQueryMetrics implements QueryMetrics, QueryMetricsMXBean {
+
+    private static final Logger SLOW_QUERY_LOG = Logger.getLogger("pablo.tzeliks.slowquery");
+
+    // Ad-hoc statements with inlined literals would otherwise grow the map without bound
+    private static final int MAX_TRACKED_QUERIES = 1000;
+    private static final String OVERFLOW_NAME = "<other>";
+
+    private final Map<String, QueryStats> stats = new ConcurrentHashMap<>();
+    private final LatencyHistogram connectionWait = new LatencyHistogram();
+    private final LongAdder connectionWaitErrors = new LongAdder();
+    private final LongAdder replicaFallbacks = new LongAdder();
+
+    private volatile long slowQueryThresholdNanos;
+
+    public InMemoryQueryMetrics(long slowQueryThresholdMillis) {
+        this.slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryThresholdMillis);
+    }
+
+    @Override
+    public void recordExecution(String sql, long elapsedNanos, long rowsAffected, boolean failed) {
+        QueryStats queryStats = statsFor(sql);
+        queryStats.recordExecution(elapsedNanos, rowsAffected, failed);
+
+        if (elapsedNanos >= slowQueryThresholdNanos) {
+            SLOW_QUERY_LOG.warning(() -> "Slow query (" + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + "ms"
+                    + (failed ? ", failed" : "") + "): " + queryStats.getName());
+        }
+    }
+
+    @Override
+    public void recordRowsReturned(String sql, long rows) {
+        statsFor(sql).recordRowsReturned(rows);
+    }
+
+    @Override
+    public void recordConnectionWait(long elapsedNanos, boolean failed) {
+        connectionWait.record(elapsedNanos);
+
+        if (failed) {
+            connectionWaitErrors.increment();
+        }
+    }
+
+    @Override
+    public void recordReplicaFallback() {
+        replicaFallbacks.increment();
+    }
+
+    public Collection<QueryStats> getStats() {
+        return stats.values();
+    }
+
+    public QueryStats getStats(String query) {
+        return stats.values().stream()
+                .filter(queryStats -> queryStats.getName().equals(query))
+                .findFirst()
+                .orElse(null);
+    }
+
+    // Replaces whatever was registered under the name, e.g. the metrics of a pool that was shut down
+    public void registerMBean(String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(name);
+
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+
+            server.registerMBean(this, objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register query metrics MBean: " + e.getMessage(), e);
+        }
+    }
+
+    // JMX
+
+    @Override
+    public String[] getQueryNames() {
+        return stats.values().stream()
+                .map(QueryStats::getName)
+                .sorted()
+                .toArray(String[]::new);
+    }
+
+    @Override
+    public long getExecutions(String query) {
+        QueryStats queryStats = getStats(query);
+        return queryStats == null ? 0 : queryStats.getExecutions();
+    }
+
+    @Override
+    public long getErrors(String query) {
+        QueryStats queryStats = getStats(query);
+        return queryStats == null ? 0 : queryStats.getErrors();
+    }
+
+    @Override
+    public long getRowsReturned(String query) {
+        QueryStats queryStats = getStats(query);
+        return queryStats == null ? 0 : queryStats.getRowsReturned();
+    }
+
+    @Override
+    public long getRowsAffected(String query) {
+        QueryStats queryStats = getStats(query);
+        return queryStats == null ? 0 : queryStats.getRowsAffected();
+    }
+
+    @Override
+    public double getP50Millis(String query) {
+        QueryStats queryStats = getStats(query);
+        return queryStats == null ? 0 : queryStats.getPercentileMillis(50);
+    }
+
+    @Override
+    public double getP99Millis(String query) {
+        QueryStats queryStats = getStats(query);
+        return queryStats == null ? 0 : queryStats.getPercentileMillis(99);
+    }
+
+    @Override
+    public double getMaxMillis(String query) {
+        QueryStats queryStats = getStats(query);
+        return queryStats == null ? 0 : queryStats.getMaxMillis();
+    }
+
+    @Override
+    public long getConnectionWaits() {
+        return connectionWait.count();
+    }
+
+    @Override
+    public long getConnectionWaitErrors() {
+        return connectionWaitErrors.sum();
+    }
+
+    @Override
+    public double getConnectionWaitP99Millis() {
+        return (double) connectionWait.percentile(99) / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public long getReplicaFallbacks() {
+        return replicaFallbacks.sum();
+    }
+
+    @Override
+    public long getSlowQueryThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(slowQueryThresholdNanos);
+    }
+
+    @Override
+    public void setSlowQueryThresholdMillis(long thresholdMillis) {
+        this.slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    }
+
+    @Override
+    public void reset() {
+        stats.clear();
+    }
+
+    // Additional
+
+    // Keyed by the raw SQL so the hot path is one hash lookup; the readable name is built once
+    private QueryStats statsFor(String sql) {
+        QueryStats queryStats = stats.get(sql);
+
+        if (queryStats != null) {
+            return queryStats;
+        }
+
+        if (stats.size() >= MAX_TRACKED_QUERIES) {
+            return stats.computeIfAbsent(OVERFLOW_NAME, QueryStats::new);
+        }
+
+        return stats.computeIfAbsent(sql, key -> new QueryStats(normalize(key)));
+    }
+
+    static String normalize(String sql) {
+        String name = sql.strip().replaceAll("\\s+", " ");
+        return name.endsWith(";") ? name.substring(0, name.length() - 1).stripTrailing() : name;
+    }
+}
@@ -0,0 +1,33 @@
+package pablo.tzeliks.utils.metrics;
+
+// Receives timings from the connection layer; implementations must be thread-safe and cheap.
+public interface QueryMetrics {
+
+    QueryMetrics NOOP = new QueryMetrics() {
+        @Override
+        public void recordExecution(String sql, long elapsedNanos, long rowsAffected, boolean failed) {
+        }
+
+        @Override
+        public void recordRowsReturned(String sql, long rows) {
+        }
+
+        @Override
+        public void recordConnectionWait(long elapsedNanos, boolean failed) {
+        }
+
+        @Override
+        public void recordReplicaFallback() {
+        }
+    };
+
+    // rowsAffected is -1 for queries, whose rows are reported through recordRowsReturned once the cursor is closed
+    void recordExecution(String sql, long elapsedNanos, long rowsAffected, boolean failed);
+
+    void recordRowsReturned(String sql, long rows);
+
+    void recordConnectionWait(long elapsedNanos, boolean failed);
+
+    // A read meant for a replica that went to the primary because no replica connection could be borrowed
+    void recordReplicaFallback();
+}
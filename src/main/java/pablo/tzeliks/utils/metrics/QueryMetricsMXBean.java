@@ -0,0 +1,34 @@
+package pablo.tzeliks.utils.metrics;
+
+public interface QueryMetricsMXBean {
+
+    String[] getQueryNames();
+
+    long getExecutions(String query);
+
+    long getErrors(String query);
+
+    long getRowsReturned(String query);
+
+    long getRowsAffected(String query);
+
+    double getP50Millis(String query);
+
+    double getP99Millis(String query);
+
+    double getMaxMillis(String query);
+
+    long getConnectionWaits();
+
+    long getConnectionWaitErrors();
+
+    double getConnectionWaitP99Millis();
+
+    long getReplicaFallbacks();
+
+    long getSlowQueryThresholdMillis();
+
+    void setSlowQueryThresholdMillis(long thresholdMillis);
+
+    void reset();
+}
@@ -0,0 +1,78 @@
+package pablo.tzeliks.utils.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Running totals for one statement text.
+public class QueryStats {
+
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder rowsReturned = new LongAdder();
+    private final LongAdder rowsAffected = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    QueryStats(String name) {
+        this.name = name;
+    }
+
+    void recordExecution(long elapsedNanos, long affected, boolean failed) {
+        latency.record(elapsedNanos);
+
+        if (failed) {
+            errors.increment();
+        } else if (affected > 0) {
+            rowsAffected.add(affected);
+        }
+    }
+
+    void recordRowsReturned(long rows) {
+        rowsReturned.add(rows);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getExecutions() {
+        return latency.count();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getRowsReturned() {
+        return rowsReturned.sum();
+    }
+
+    public long getRowsAffected() {
+        return rowsAffected.sum();
+    }
+
+    public double getMeanMillis() {
+        return latency.mean() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public double getPercentileMillis(double percentile) {
+        return (double) latency.percentile(percentile) / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public double getMaxMillis() {
+        return (double) latency.max() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        return "QueryStats{" +
+                "name='" + name + '\'' +
+                ", executions=" + getExecutions() +
+                ", errors=" + getErrors() +
+                ", rowsReturned=" + getRowsReturned() +
+                ", rowsAffected=" + getRowsAffected() +
+                ", p50=" + getPercentileMillis(50) + "ms" +
+                ", p99=" + getPercentileMillis(99) + "ms" +
+                ", max=" + getMaxMillis() + "ms" +
+                '}';
+    }
+}
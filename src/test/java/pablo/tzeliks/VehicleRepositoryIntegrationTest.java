@@ -4,19 +4,52 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import pablo.tzeliks.domain.ChangeEvent;
+import pablo.tzeliks.domain.CostRollup;
 import pablo.tzeliks.domain.Maintenance;
+import pablo.tzeliks.domain.MaintenanceSummary;
+import pablo.tzeliks.domain.Page;
 import pablo.tzeliks.domain.Vehicle;
 import pablo.tzeliks.domain.VehicleStatus;
+import pablo.tzeliks.exception.DuplicatePlateException;
+import pablo.tzeliks.exception.OptimisticLockException;
+import pablo.tzeliks.infra.AnalyticsRepositoryImpl;
+import pablo.tzeliks.infra.CachingVehicleRepository;
+import pablo.tzeliks.infra.ChangeFeedPoller;
 import pablo.tzeliks.infra.MaintenanceRepositoryImpl;
+import pablo.tzeliks.infra.MaintenanceWriteBehindBuffer;
+import pablo.tzeliks.infra.VehicleRepository;
 import pablo.tzeliks.infra.VehicleRepositoryImpl;
+import pablo.tzeliks.infra.mapping.RowMapper;
+import pablo.tzeliks.infra.mapping.RowMappers;
+import pablo.tzeliks.infra.snapshot.FleetSnapshot;
+import pablo.tzeliks.infra.snapshot.FleetSnapshotRefresher;
+import pablo.tzeliks.service.AnalyticsService;
+import pablo.tzeliks.service.AsyncVehicleService;
+import pablo.tzeliks.service.FleetSnapshotService;
 import pablo.tzeliks.service.MaintenanceService;
 import pablo.tzeliks.service.VehicleService;
+import pablo.tzeliks.utils.BoundedDatabaseExecutor;
+import pablo.tzeliks.utils.ConnectionPool;
+import pablo.tzeliks.utils.DatabaseConfig;
 import pablo.tzeliks.utils.DatabaseConnection;
+import pablo.tzeliks.utils.DatabaseProfile;
+import pablo.tzeliks.utils.TransactionTemplate;
+import pablo.tzeliks.utils.metrics.InMemoryQueryMetrics;
+import pablo.tzeliks.utils.metrics.QueryMetrics;
+import pablo.tzeliks.utils.metrics.QueryStats;
 
+import java.lang.invoke.MethodHandles;
 import java.math.BigDecimal;
 import java.sql.*;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -33,7 +66,9 @@ public class VehicleRepositoryIntegrationTest {
                 license_plate VARCHAR(20) UNIQUE NOT NULL,
                 model VARCHAR(100) NOT NULL,
                 manufacturing_date DATE NOT NULL,
-                status VARCHAR(20) NOT NULL
+                status VARCHAR(20) NOT NULL,
+                version INT NOT NULL DEFAULT 0,
+                INDEX idx_vehicle_status_id (status, id)
             );
             """;
 
@@ -48,17 +83,41 @@ public class VehicleRepositoryIntegrationTest {
             );
             """;
 
+    private static final String CREATE_MAINTENANCE_SUMMARY = """
+            CREATE TABLE IF NOT EXISTS vehicle_maintenance_summary (
+                vehicle_id INT PRIMARY KEY,
+                total_cost DECIMAL(14, 2) NOT NULL,
+                maintenance_count INT NOT NULL,
+                last_maintenance_date DATE,
+                FOREIGN KEY (vehicle_id) REFERENCES vehicle(id) ON DELETE CASCADE
+            );
+            """;
+
+    private static final String CREATE_CHANGE_LOG = """
+            CREATE TABLE IF NOT EXISTS change_log (
+                id BIGINT PRIMARY KEY AUTO_INCREMENT,
+                entity VARCHAR(20) NOT NULL,
+                entity_id INT NOT NULL,
+                operation VARCHAR(10) NOT NULL,
+                created_at DATETIME(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3)
+            );
+            """;
+
     @BeforeAll
     static void setupGlobal() {
         try (Connection conn = DatabaseConnection.getConnection();
              Statement stmt = conn.createStatement()) {
 
             // Ordem importa: Dropa primeiro a filha (maintenance), depois a mãe (vehicle)
+            stmt.execute("DROP TABLE IF EXISTS change_log");
+            stmt.execute("DROP TABLE IF EXISTS vehicle_maintenance_summary");
             stmt.execute("DROP TABLE IF EXISTS maintenance");
             stmt.execute("DROP TABLE IF EXISTS vehicle");
 
             stmt.execute(CREATE_VEHICLE);
             stmt.execute(CREATE_MAINTENANCE);
+            stmt.execute(CREATE_MAINTENANCE_SUMMARY);
+            stmt.execute(CREATE_CHANGE_LOG);
 
         } catch (SQLException e) {
             fail("Erro no setup global: " + e.getMessage());
@@ -74,6 +133,8 @@ public class VehicleRepositoryIntegrationTest {
         try (Connection conn = DatabaseConnection.getConnection();
              Statement stmt = conn.createStatement()) {
             stmt.execute("SET FOREIGN_KEY_CHECKS = 0");
+            stmt.execute("TRUNCATE TABLE change_log");
+            stmt.execute("TRUNCATE TABLE vehicle_maintenance_summary");
             stmt.execute("TRUNCATE TABLE maintenance");
             stmt.execute("TRUNCATE TABLE vehicle");
             stmt.execute("SET FOREIGN_KEY_CHECKS = 1");
@@ -126,6 +187,8 @@ public class VehicleRepositoryIntegrationTest {
         });
 
         assertEquals("Veículo já cadastrado com esta placa!", ex.getMessage());
+        assertInstanceOf(DuplicatePlateException.class, ex);
+        assertEquals("XYZ-9999", ((DuplicatePlateException) ex).getLicensePlate());
     }
 
     @Test
@@ -249,6 +312,13 @@ public class VehicleRepositoryIntegrationTest {
 
         // Validação da mensagem de erro amigável
         assertEquals("Veículo não encontrado para adicionar manutenção!", ex.getMessage());
+
+        // O lote também é rejeitado pela própria escrita, sem SELECT de existência
+        RuntimeException exLote = assertThrows(RuntimeException.class, () -> {
+            maintenanceService.addMaintenances(9999, List.of(m));
+        });
+
+        assertEquals("Veículo não encontrado para adicionar manutenção!", exLote.getMessage());
     }
 
     @Test
@@ -280,12 +350,615 @@ public class VehicleRepositoryIntegrationTest {
         inserirManutencaoSQL(idVeiculo, "Peça B", 200.50);
         inserirManutencaoSQL(idVeiculo, "Mão de Obra", 100.00);
 
+        // As inserções diretas no banco não passam pelo repositório: o resumo precisa ser reconstruído
+        maintenanceService.repairMaintenanceSummaries();
+
         // Total esperado: 401.00
         BigDecimal total = maintenanceService.calculateTotalMaintenanceCost(idVeiculo);
 
         assertEquals(new BigDecimal("401.00"), total);
     }
 
+    @Test
+    @DisplayName("Pool: Fechar a conexão deve devolvê-la ao pool em vez de encerrá-la")
+    void deveDevolverConexaoAoPool() throws SQLException {
+        ConnectionPool pool = DatabaseConnection.getPool();
+
+        Connection conn = DatabaseConnection.getConnection();
+        int ativas = pool.getActiveConnections();
+        int total = pool.getTotalConnections();
+
+        conn.close();
+
+        assertTrue(conn.isClosed());
+        assertEquals(ativas - 1, pool.getActiveConnections());
+        assertEquals(total, pool.getTotalConnections(), "A conexão física deveria continuar aberta no pool");
+
+        // Um close tardio do handle antigo não pode devolver a conexão do próximo chamador
+        try (Connection outra = DatabaseConnection.getConnection()) {
+            int ativasComOutra = pool.getActiveConnections();
+
+            conn.close();
+
+            assertFalse(outra.isClosed());
+            assertEquals(ativasComOutra, pool.getActiveConnections());
+        }
+    }
+
+    @Test
+    @DisplayName("Batch: Deve salvar vários veículos em lote preenchendo os IDs gerados")
+    void deveSalvarVeiculosEmLote() throws SQLException {
+        List<Vehicle> veiculos = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            veiculos.add(new Vehicle(0, "LOT-" + i, "Lote", LocalDate.of(2021, 1, 1), VehicleStatus.AVAILABLE));
+        }
+
+        // Lotes de 10 para forçar mais de um executeBatch
+        List<Vehicle> salvos = new VehicleService(new VehicleRepositoryImpl(10)).saveAll(veiculos);
+
+        assertEquals(25, salvos.size());
+        assertTrue(salvos.stream().allMatch(v -> v.getId() > 0));
+        assertEquals(25, salvos.stream().map(Vehicle::getId).distinct().count());
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             ResultSet rs = conn.createStatement().executeQuery("SELECT count(*) FROM vehicle WHERE model = 'Lote'")) {
+
+            rs.next();
+            assertEquals(25, rs.getInt(1));
+        }
+    }
+
+    @Test
+    @DisplayName("Streaming: Deve percorrer todos os veículos e liberar a conexão ao fechar o stream")
+    void deveListarTodosEmStream() throws SQLException {
+        inserirVeiculoSQL("STR-0001", "Stream 1", LocalDate.now(), VehicleStatus.AVAILABLE);
+        inserirVeiculoSQL("STR-0002", "Stream 2", LocalDate.now(), VehicleStatus.IN_TRANSIT);
+
+        int ativasAntes = DatabaseConnection.getPool().getActiveConnections();
+
+        try (Stream<Vehicle> stream = vehicleService.streamAll()) {
+            assertEquals(2, stream.count());
+        }
+
+        assertEquals(ativasAntes, DatabaseConnection.getPool().getActiveConnections());
+    }
+
+    @Test
+    @DisplayName("Paginação: Deve percorrer os veículos por cursor filtrando por status")
+    void devePaginarVeiculosPorCursor() throws SQLException {
+        inserirVeiculoSQL("PAG-0001", "Pag", LocalDate.now(), VehicleStatus.AVAILABLE);
+        inserirVeiculoSQL("PAG-0002", "Pag", LocalDate.now(), VehicleStatus.IN_TRANSIT);
+        inserirVeiculoSQL("PAG-0003", "Pag", LocalDate.now(), VehicleStatus.AVAILABLE);
+        inserirVeiculoSQL("PAG-0004", "Pag", LocalDate.now(), VehicleStatus.AVAILABLE);
+
+        Page<Vehicle> primeira = vehicleService.findPage(0, 2, VehicleStatus.AVAILABLE);
+
+        assertEquals(2, primeira.items().size());
+        assertTrue(primeira.hasNext());
+
+        Page<Vehicle> segunda = vehicleService.findPage(primeira.nextCursor(), 2, VehicleStatus.AVAILABLE);
+
+        assertEquals(1, segunda.items().size());
+        assertEquals("PAG-0004", segunda.items().get(0).getLicensePlate());
+        assertFalse(segunda.hasNext());
+    }
+
+    @Test
+    @DisplayName("Cache: Deve servir findById do cache e invalidar após alteração de status")
+    void deveUsarCacheEInvalidarNaEscrita() throws SQLException {
+        int id = inserirVeiculoSQL("CAC-0001", "Cache", LocalDate.now(), VehicleStatus.AVAILABLE);
+
+        CachingVehicleRepository cache = new CachingVehicleRepository(new VehicleRepositoryImpl(), 100);
+
+        Vehicle primeiro = cache.findById(id);
+        primeiro.setModel("Alterado fora do repositório");
+
+        Vehicle segundo = cache.findById(id);
+
+        assertEquals("Cache", segundo.getModel(), "O objeto em cache não pode ser alterado pelo chamador");
+        assertEquals(1, cache.getStats().hits());
+        assertEquals(1, cache.getStats().misses());
+
+        cache.updateStatus(id, VehicleStatus.IN_TRANSIT);
+
+        assertEquals(VehicleStatus.IN_TRANSIT, cache.findById(id).getStatus());
+        assertEquals(2, cache.getStats().misses());
+    }
+
+    @Test
+    @DisplayName("Pool: Consultas repetidas devem reutilizar o PreparedStatement em cache")
+    void deveReutilizarStatementEmCache() throws SQLException {
+        int id = inserirVeiculoSQL("PST-0001", "Statement", LocalDate.now(), VehicleStatus.AVAILABLE);
+        VehicleRepositoryImpl repository = new VehicleRepositoryImpl();
+
+        repository.findById(id);
+        long hitsAntes = DatabaseConnection.getPool().getStatementCacheStats().hits();
+
+        repository.findById(id);
+
+        assertTrue(DatabaseConnection.getPool().getStatementCacheStats().hits() > hitsAntes);
+
+        // Um handle guardado depois do close() não pode alcançar o statement entregue ao próximo chamador
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            PreparedStatement antigo = conn.prepareStatement("SELECT model FROM vehicle WHERE id = ?");
+            antigo.close();
+
+            try (PreparedStatement atual = conn.prepareStatement("SELECT model FROM vehicle WHERE id = ?")) {
+                assertNotSame(antigo, atual);
+                assertThrows(SQLException.class, () -> antigo.setInt(1, -1));
+
+                atual.setInt(1, id);
+
+                try (ResultSet rs = atual.executeQuery()) {
+                    assertTrue(rs.next());
+                    assertEquals("Statement", rs.getString(1));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Batch: Deve buscar vários veículos com manutenções em uma única consulta")
+    void deveBuscarVariosVeiculosComHistorico() throws SQLException {
+        int idA = inserirVeiculoSQL("MUL-0001", "Multi A", LocalDate.now(), VehicleStatus.AVAILABLE);
+        int idB = inserirVeiculoSQL("MUL-0002", "Multi B", LocalDate.now(), VehicleStatus.AVAILABLE);
+        int idC = inserirVeiculoSQL("MUL-0003", "Multi C", LocalDate.now(), VehicleStatus.AVAILABLE);
+        inserirManutencaoSQL(idA, "Freios", 300.00);
+        inserirManutencaoSQL(idA, "Embreagem", 900.00);
+        inserirManutencaoSQL(idC, "Alinhamento", 150.00);
+
+        Map<Integer, Vehicle> veiculos = vehicleService.findWithMaintenances(List.of(idA, idB, idC, 9999));
+
+        assertEquals(3, veiculos.size());
+        assertEquals(2, veiculos.get(idA).getMaintenances().size());
+        assertTrue(veiculos.get(idB).getMaintenances().isEmpty());
+        assertEquals("Alinhamento", veiculos.get(idC).getMaintenances().get(0).getDescription());
+
+        assertEquals(2, vehicleService.findByIds(List.of(idA, idB)).size());
+    }
+
+    @Test
+    @DisplayName("Complex Query: Manutenções do JOIN devem trazer o próprio ID, não o do veículo")
+    void deveMapearIdDaManutencaoNoJoin() throws SQLException {
+        int idVeiculo = inserirVeiculoSQL("JID-0001", "Join Id", LocalDate.now(), VehicleStatus.AVAILABLE);
+        inserirManutencaoSQL(idVeiculo, "Primeira", 10.00);
+        inserirManutencaoSQL(idVeiculo, "Segunda", 20.00);
+
+        List<Maintenance> manutencoes = vehicleService.findWithMaintenances(idVeiculo).getMaintenances();
+
+        assertEquals(2, manutencoes.size());
+        assertNotEquals(manutencoes.get(0).getId(), manutencoes.get(1).getId());
+        assertTrue(manutencoes.stream().allMatch(m -> m.getVehicleId() == idVeiculo));
+    }
+
+    @Test
+    @DisplayName("Async: Deve carregar vários veículos em paralelo em threads virtuais")
+    void deveCarregarVeiculosEmParalelo() throws SQLException {
+        int idA = inserirVeiculoSQL("ASY-0001", "Async A", LocalDate.now(), VehicleStatus.AVAILABLE);
+        int idB = inserirVeiculoSQL("ASY-0002", "Async B", LocalDate.now(), VehicleStatus.AVAILABLE);
+        inserirManutencaoSQL(idB, "Revisão", 50.00);
+
+        try (BoundedDatabaseExecutor executor = BoundedDatabaseExecutor.forPool(DatabaseConnection.getPool())) {
+            AsyncVehicleService asyncService = new AsyncVehicleService(vehicleService, executor);
+
+            List<Vehicle> veiculos = asyncService.findWithMaintenancesConcurrently(List.of(idA, idB)).join();
+
+            assertEquals(2, veiculos.size());
+            assertEquals("Async A", veiculos.get(0).getModel());
+            assertEquals(1, veiculos.get(1).getMaintenances().size());
+        }
+    }
+
+    @Test
+    @DisplayName("Métricas: Deve registrar execuções e linhas retornadas por consulta")
+    void deveRegistrarMetricasPorConsulta() throws SQLException {
+        inserirVeiculoSQL("MET-0001", "Metricas", LocalDate.now(), VehicleStatus.AVAILABLE);
+        inserirVeiculoSQL("MET-0002", "Metricas", LocalDate.now(), VehicleStatus.AVAILABLE);
+
+        InMemoryQueryMetrics metricas = new InMemoryQueryMetrics(1_000);
+        QueryMetrics anteriores = DatabaseConnection.getQueryMetrics();
+        DatabaseConnection.setQueryMetrics(metricas);
+
+        try {
+            vehicleService.findAll();
+        } finally {
+            DatabaseConnection.setQueryMetrics(anteriores);
+        }
+
+        QueryStats stats = metricas.getStats("SELECT * FROM vehicle");
+
+        assertNotNull(stats);
+        assertEquals(1, stats.getExecutions());
+        assertEquals(2, stats.getRowsReturned());
+        assertEquals(0, stats.getErrors());
+        assertTrue(metricas.getConnectionWaits() >= 1);
+    }
+
+    @Test
+    @DisplayName("Relatório: O resumo de custos deve ser mantido a cada manutenção registrada")
+    void deveManterResumoDeCustosIncremental() throws SQLException {
+        int idVeiculo = inserirVeiculoSQL("SUM-0001", "Resumo", LocalDate.now(), VehicleStatus.AVAILABLE);
+
+        maintenanceService.addMaintenance(idVeiculo, new Maintenance(0, 0, "Óleo", new BigDecimal("120.00"), LocalDate.of(2024, 3, 1)));
+        maintenanceService.addMaintenance(idVeiculo, new Maintenance(0, 0, "Pneus", new BigDecimal("880.50"), LocalDate.of(2024, 5, 1)));
+
+        MaintenanceSummary resumo = maintenanceService.findMaintenanceSummary(idVeiculo);
+
+        assertEquals(new BigDecimal("1000.50"), resumo.totalCost());
+        assertEquals(2, resumo.maintenanceCount());
+        assertEquals(LocalDate.of(2024, 5, 1), resumo.lastMaintenanceDate());
+        assertTrue(maintenanceService.repairMaintenanceSummaries().isEmpty(), "Não deveria haver divergência");
+
+        // Divergência provocada por fora do repositório deve ser detectada e corrigida
+        inserirManutencaoSQL(idVeiculo, "Fora do repositório", 10.00);
+
+        assertEquals(List.of(idVeiculo), maintenanceService.repairMaintenanceSummaries());
+        assertEquals(new BigDecimal("1010.50"), maintenanceService.calculateTotalMaintenanceCost(idVeiculo));
+    }
+
+    @Test
+    @DisplayName("Relatório: Deve agrupar custos por modelo e ranquear veículos mais caros")
+    void deveGerarRelatoriosDaFrota() throws SQLException {
+        int idA = inserirVeiculoSQL("ANL-0001", "Volvo FH", LocalDate.now(), VehicleStatus.AVAILABLE);
+        int idB = inserirVeiculoSQL("ANL-0002", "Volvo FH", LocalDate.now(), VehicleStatus.AVAILABLE);
+        int idC = inserirVeiculoSQL("ANL-0003", "Scania", LocalDate.now(), VehicleStatus.AVAILABLE);
+
+        maintenanceService.addMaintenance(idA, new Maintenance(0, 0, "Motor", new BigDecimal("300.00"), LocalDate.now()));
+        maintenanceService.addMaintenance(idB, new Maintenance(0, 0, "Freios", new BigDecimal("100.00"), LocalDate.now()));
+        maintenanceService.addMaintenance(idC, new Maintenance(0, 0, "Cabine", new BigDecimal("500.00"), LocalDate.now()));
+
+        AnalyticsService analyticsService = new AnalyticsService(new AnalyticsRepositoryImpl());
+
+        try (Stream<CostRollup> porModelo = analyticsService.costByModel()) {
+            CostRollup volvo = porModelo.filter(r -> r.key().equals("Volvo FH")).findFirst().orElseThrow();
+
+            assertEquals(2, volvo.maintenanceCount());
+            assertEquals(new BigDecimal("400.00"), volvo.totalCost());
+            assertEquals(new BigDecimal("200.00"), volvo.averageCost());
+        }
+
+        try (Stream<CostRollup> ranking = analyticsService.topExpensiveVehicles(2)) {
+            assertEquals(List.of("ANL-0003", "ANL-0001"), ranking.map(CostRollup::key).toList());
+        }
+    }
+
+    @Test
+    @DisplayName("Bulk: Deve alterar status de vários veículos e fazer upsert pela placa")
+    void deveAtualizarStatusEmMassaEUpsertPorPlaca() throws SQLException {
+        int idA = inserirVeiculoSQL("BLK-0001", "Bulk", LocalDate.now(), VehicleStatus.AVAILABLE);
+        int idB = inserirVeiculoSQL("BLK-0002", "Bulk", LocalDate.now(), VehicleStatus.AVAILABLE);
+        int idC = inserirVeiculoSQL("BLK-0003", "Bulk", LocalDate.now(), VehicleStatus.AVAILABLE);
+
+        assertEquals(2, vehicleService.updateStatus(List.of(idA, idB), VehicleStatus.IN_TRANSIT));
+        vehicleService.updateStatusBulk(Map.of(idB, VehicleStatus.AVAILABLE, idC, VehicleStatus.IN_MAINTANENCE));
+
+        assertEquals(VehicleStatus.IN_TRANSIT, vehicleService.findById(idA).getStatus());
+        assertEquals(VehicleStatus.AVAILABLE, vehicleService.findById(idB).getStatus());
+        assertEquals(VehicleStatus.IN_MAINTANENCE, vehicleService.findById(idC).getStatus());
+
+        Vehicle existente = vehicleService.saveOrUpdate(new Vehicle(0, "BLK-0001", "Bulk Novo", LocalDate.now(), VehicleStatus.AVAILABLE));
+        Vehicle novo = vehicleService.saveOrUpdate(new Vehicle(0, "BLK-0004", "Bulk", LocalDate.now(), VehicleStatus.AVAILABLE));
+
+        assertEquals(idA, existente.getId());
+        assertEquals("Bulk Novo", vehicleService.findById(idA).getModel());
+        assertTrue(novo.getId() > idC);
+    }
+
+    @Test
+    @DisplayName("Write-behind: Manutenções enfileiradas devem ser gravadas em lote com ID gerado")
+    void deveGravarManutencoesEmWriteBehind() throws Exception {
+        int idVeiculo = inserirVeiculoSQL("WBH-0001", "Write Behind", LocalDate.now(), VehicleStatus.AVAILABLE);
+
+        List<CompletableFuture<Maintenance>> futuros = new ArrayList<>();
+        CompletableFuture<Maintenance> invalido;
+
+        try (MaintenanceWriteBehindBuffer buffer = new MaintenanceWriteBehindBuffer(new MaintenanceRepositoryImpl(), 100, 10, 50)) {
+            for (int i = 0; i < 15; i++) {
+                futuros.add(buffer.submit(idVeiculo, new Maintenance(0, 0, "Item " + i, BigDecimal.ONE, LocalDate.now())));
+            }
+
+            // Veículo inexistente: só esta entrada deve falhar, não o lote inteiro
+            invalido = buffer.submit(9999, new Maintenance(0, 0, "Fantasma", BigDecimal.ONE, LocalDate.now()));
+        }
+
+        assertTrue(futuros.stream().allMatch(f -> f.join().getId() > 0));
+        assertTrue(invalido.isCompletedExceptionally());
+        assertEquals(new BigDecimal("15.00"), maintenanceService.calculateTotalMaintenanceCost(idVeiculo));
+    }
+
+    @Test
+    @DisplayName("Réplicas: Leituras vão para réplica e onPrimary fixa a leitura no primário")
+    void deveRotearLeiturasParaReplicaOuPrimario() throws SQLException {
+        long primario = serverId(DatabaseConnection.getConnection());
+
+        long fixado = DatabaseConnection.onPrimary(() -> {
+            try {
+                return serverId(DatabaseConnection.getReadConnection());
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        assertEquals(primario, fixado);
+
+        // Sem réplicas configuradas a leitura cai no primário; com réplicas deve sair dele
+        long leitura = serverId(DatabaseConnection.getReadConnection());
+
+        if (DatabaseConnection.getReplicaPools().isEmpty()) {
+            assertEquals(primario, leitura);
+        } else {
+            assertNotEquals(primario, leitura);
+        }
+    }
+
+    @Test
+    @DisplayName("Configuração: Perfil define flags do driver e chaves explícitas prevalecem")
+    void deveAplicarPerfilEOverridesDeConfiguracao() {
+        DatabaseConfig config = DatabaseConfig.from(Map.of(
+                "simple_db.profile", "analytics-streaming",
+                "simple_db.pool.max_size", "4",
+                "simple_db.driver.socketTimeout", "15000"));
+
+        assertEquals(DatabaseProfile.ANALYTICS_STREAMING, config.getProfile());
+        assertEquals(4, config.getPoolMaxSize());
+        assertEquals(1000, config.getStreamingFetchSize());
+        assertEquals("true", config.getDriverProperties().get("useCursorFetch"));
+        assertEquals("15000", config.getDriverProperties().get("socketTimeout"));
+        assertFalse(config.isMetricsEnabled(), "Métricas só são ligadas explicitamente");
+        assertTrue(DatabaseConfig.from(Map.of("simple_db.metrics.enabled", "true")).isMetricsEnabled());
+
+        String url = config.jdbcUrl("jdbc:mysql://localhost:3306/simple_db");
+        assertTrue(url.startsWith("jdbc:mysql://localhost:3306/simple_db?"));
+        assertTrue(url.contains("useCursorFetch=true"));
+
+        assertThrows(IllegalArgumentException.class, () -> DatabaseConfig.from(Map.of("simple_db.profile", "turbo")));
+    }
+
+    @Test
+    @DisplayName("Transação: Veículo e histórico são gravados juntos ou nada é gravado")
+    void deveGravarVeiculoEHistoricoNaMesmaTransacao() {
+        List<Maintenance> historico = List.of(
+                new Maintenance(0, 0, "Revisão", new BigDecimal("80.00"), LocalDate.now()),
+                new Maintenance(0, 0, "Pneus", new BigDecimal("20.00"), LocalDate.now()));
+
+        Vehicle salvo = maintenanceService.registerVehicleWithHistory(
+                new Vehicle(0, "TRX-0001", "Transacional", LocalDate.now(), VehicleStatus.AVAILABLE), historico);
+
+        assertEquals(VehicleStatus.IN_MAINTANENCE, vehicleService.findById(salvo.getId()).getStatus());
+        assertEquals(new BigDecimal("100.00"), maintenanceService.calculateTotalMaintenanceCost(salvo.getId()));
+
+        TransactionTemplate transacao = new TransactionTemplate(Connection.TRANSACTION_READ_COMMITTED, false);
+
+        assertThrows(RuntimeException.class, () -> transacao.run(() -> {
+            vehicleService.save(new Vehicle(0, "TRX-0002", "Transacional", LocalDate.now(), VehicleStatus.AVAILABLE));
+            throw new RuntimeException("Falha depois do insert");
+        }));
+
+        assertTrue(vehicleService.findAll().stream().noneMatch(v -> v.getLicensePlate().equals("TRX-0002")));
+        assertFalse(TransactionTemplate.isActive());
+    }
+
+    private record PlacaEStatus(String licensePlate, VehicleStatus status) {
+    }
+
+    @Test
+    @DisplayName("Mapeamento: Projeção em record deve ser lida pelo nome das colunas, em qualquer ordem")
+    void deveMapearProjecaoParaRecord() throws SQLException {
+        int id = inserirVeiculoSQL("MAP-0001", "Mapper", LocalDate.now(), VehicleStatus.IN_TRANSIT);
+
+        RowMapper<PlacaEStatus> mapper = RowMappers.of(PlacaEStatus.class, MethodHandles.lookup());
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT status, license_plate FROM vehicle WHERE id = ?")) {
+            stmt.setInt(1, id);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                assertTrue(rs.next());
+                assertEquals(new PlacaEStatus("MAP-0001", VehicleStatus.IN_TRANSIT), mapper.map(rs));
+                assertEquals(new PlacaEStatus("MAP-0001", VehicleStatus.IN_TRANSIT), mapper.bind(rs.getMetaData()).map(rs));
+            }
+        }
+
+        assertEquals("Mapper", vehicleService.findById(id).getModel());
+    }
+
+    @Test
+    @DisplayName("Mapeamento: Modelos repetidos devem compartilhar a mesma String e status decodificado")
+    void deveInternarModeloEDecodificarStatus() throws SQLException {
+        inserirVeiculoSQL("INT-0001", "Mercedes Actros", LocalDate.now(), VehicleStatus.AVAILABLE);
+        inserirVeiculoSQL("INT-0002", "Mercedes Actros", LocalDate.now(), VehicleStatus.IN_TRANSIT);
+        inserirVeiculoSQL("INT-0003", "Mercedes Actros", LocalDate.now(), VehicleStatus.IN_MAINTANENCE);
+
+        List<Vehicle> veiculos = vehicleService.findAll().stream()
+                .filter(v -> v.getLicensePlate().startsWith("INT-"))
+                .toList();
+
+        assertEquals(3, veiculos.size());
+        assertSame(veiculos.get(0).getModel(), veiculos.get(1).getModel());
+        assertSame(veiculos.get(1).getModel(), veiculos.get(2).getModel());
+        assertEquals(List.of(VehicleStatus.AVAILABLE, VehicleStatus.IN_TRANSIT, VehicleStatus.IN_MAINTANENCE),
+                veiculos.stream().map(Vehicle::getStatus).toList());
+    }
+
+    @Test
+    @DisplayName("Snapshot: Deve contar e agrupar veículos em memória por status, modelo e data")
+    void deveConsultarSnapshotColunarDaFrota() throws SQLException {
+        inserirVeiculoSQL("SNP-0001", "Iveco", LocalDate.of(2015, 1, 1), VehicleStatus.AVAILABLE);
+        inserirVeiculoSQL("SNP-0002", "Iveco", LocalDate.of(2021, 6, 1), VehicleStatus.AVAILABLE);
+        inserirVeiculoSQL("SNP-0003", "Iveco", LocalDate.of(2022, 3, 1), VehicleStatus.IN_TRANSIT);
+        int idDaf = inserirVeiculoSQL("SNP-0004", "DAF", LocalDate.of(2023, 1, 1), VehicleStatus.AVAILABLE);
+
+        try (FleetSnapshotRefresher refresher = new FleetSnapshotRefresher(1, TimeUnit.HOURS)) {
+            FleetSnapshotService snapshotService = new FleetSnapshotService(refresher);
+
+            FleetSnapshot.Criteria disponiveisIveco = FleetSnapshot.Criteria.any()
+                    .withStatus(VehicleStatus.AVAILABLE)
+                    .withModel("Iveco")
+                    .withManufacturedAfter(LocalDate.of(2020, 1, 1));
+
+            assertEquals(1, snapshotService.count(disponiveisIveco));
+            assertEquals(Map.of("Iveco", 2L, "DAF", 1L),
+                    snapshotService.countByModel(FleetSnapshot.Criteria.any().withStatus(VehicleStatus.AVAILABLE)));
+            assertEquals(0, snapshotService.count(FleetSnapshot.Criteria.any().withModel("Scania")));
+
+            // O snapshot só enxerga o novo veículo depois de recarregar
+            inserirVeiculoSQL("SNP-0005", "Iveco", LocalDate.of(2024, 1, 1), VehicleStatus.AVAILABLE);
+            assertEquals(1, snapshotService.count(disponiveisIveco));
+
+            snapshotService.refresh();
+            assertEquals(2, snapshotService.count(disponiveisIveco));
+            assertTrue(refresher.current().contains(idDaf));
+        }
+    }
+
+    @Test
+    @DisplayName("Change feed: Escritas de outro nó devem invalidar o cache e atualizar o snapshot")
+    void devePropagarMudancasPeloChangeFeed() throws SQLException {
+        // Nó A lê pelo cache e pelo snapshot; nó B escreve direto no repositório
+        VehicleRepositoryImpl noB = new VehicleRepositoryImpl();
+        CachingVehicleRepository cacheNoA = new CachingVehicleRepository(new VehicleRepositoryImpl(), 100);
+
+        Vehicle caminhao = noB.save(new Vehicle(0, "CHG-0001", "Scania", LocalDate.of(2020, 1, 1), VehicleStatus.AVAILABLE));
+        Vehicle van = noB.save(new Vehicle(0, "CHG-0002", "Sprinter", LocalDate.of(2021, 1, 1), VehicleStatus.AVAILABLE));
+
+        try (FleetSnapshotRefresher refresher = new FleetSnapshotRefresher(1, TimeUnit.HOURS);
+             ChangeFeedPoller poller = new ChangeFeedPoller(1, TimeUnit.HOURS)) {
+
+            List<ChangeEvent> recebidos = new ArrayList<>();
+            poller.subscribe(recebidos::addAll);
+            cacheNoA.subscribeTo(poller);
+            refresher.subscribeTo(poller);
+
+            assertEquals(VehicleStatus.AVAILABLE, cacheNoA.findById(caminhao.getId()).getStatus());
+
+            noB.updateStatus(caminhao.getId(), VehicleStatus.IN_TRANSIT);
+            noB.delete(van.getId());
+            Vehicle novo = noB.save(new Vehicle(0, "CHG-0003", "Volvo", LocalDate.of(2022, 1, 1), VehicleStatus.AVAILABLE));
+            Maintenance revisao = new Maintenance(0, caminhao.getId(), "Revisão", BigDecimal.valueOf(300), LocalDate.now());
+            new MaintenanceRepositoryImpl().save(caminhao.getId(), revisao);
+
+            // Antes do poll o nó A ainda enxerga o estado antigo
+            assertEquals(VehicleStatus.AVAILABLE, cacheNoA.findById(caminhao.getId()).getStatus());
+            assertTrue(refresher.current().contains(van.getId()));
+
+            assertEquals(4, poller.poll());
+
+            assertEquals(List.of(ChangeEvent.Operation.UPDATE, ChangeEvent.Operation.DELETE,
+                            ChangeEvent.Operation.INSERT, ChangeEvent.Operation.INSERT),
+                    recebidos.stream().map(ChangeEvent::operation).toList());
+            assertEquals(ChangeEvent.Entity.MAINTENANCE, recebidos.get(3).entity());
+            assertEquals(revisao.getId(), recebidos.get(3).entityId());
+            assertTrue(recebidos.get(0).version() < recebidos.get(3).version(), "Versões devem ser crescentes");
+            assertEquals(recebidos.get(3).version(), poller.getLastVersion());
+
+            assertEquals(VehicleStatus.IN_TRANSIT, cacheNoA.findById(caminhao.getId()).getStatus());
+
+            FleetSnapshot snapshot = refresher.current();
+            assertFalse(snapshot.contains(van.getId()));
+            assertTrue(snapshot.contains(novo.getId()));
+            assertEquals(VehicleStatus.IN_TRANSIT, snapshot.statusOf(caminhao.getId()));
+            assertEquals(Map.of("Scania", 1L, "Volvo", 1L), snapshot.countByModel(FleetSnapshot.Criteria.any()));
+
+            // Nada novo: o poll seguinte não publica nada
+            assertEquals(0, poller.poll());
+            assertEquals(4, recebidos.size());
+        }
+    }
+
+    @Test
+    @DisplayName("Concorrência: Upsert de placa existente deve devolver a nova versão e permitir update em seguida")
+    void deveDevolverVersaoAtualizadaNoUpsert() throws SQLException {
+        int id = inserirVeiculoSQL("UPS-0001", "Axor", LocalDate.of(2020, 1, 1), VehicleStatus.AVAILABLE);
+        VehicleRepository repository = new CachingVehicleRepository(new VehicleRepositoryImpl(), 16);
+
+        Vehicle upsert = repository.saveOrUpdate(new Vehicle(0, "UPS-0001", "Axor 2544", LocalDate.of(2020, 1, 1), VehicleStatus.AVAILABLE));
+
+        assertEquals(id, upsert.getId());
+        assertEquals(1, upsert.getVersion());
+
+        upsert.setModel("Axor 3344");
+        Vehicle atualizado = assertDoesNotThrow(() -> repository.update(upsert));
+
+        assertEquals(2, atualizado.getVersion());
+        assertEquals("Axor 3344", repository.findById(id).getModel());
+    }
+
+    @Test
+    @DisplayName("Concorrência: Update com versão antiga deve falhar e o serviço deve refazer a alteração")
+    void deveDetectarConflitoDeVersaoERetentar() throws SQLException {
+        int id = inserirVeiculoSQL("OPT-0001", "Actros", LocalDate.of(2020, 1, 1), VehicleStatus.AVAILABLE);
+        VehicleRepositoryImpl repository = new VehicleRepositoryImpl();
+
+        Vehicle leituraA = repository.findById(id);
+        Vehicle leituraB = repository.findById(id);
+        assertEquals(0, leituraA.getVersion());
+
+        leituraA.setModel("Actros 2651");
+        assertEquals(1, repository.update(leituraA).getVersion());
+
+        leituraB.setModel("Actros 2546");
+        OptimisticLockException conflito = assertThrows(OptimisticLockException.class, () -> repository.update(leituraB));
+        assertEquals(0, conflito.getExpectedVersion());
+        assertEquals(1, conflito.getCurrentVersion());
+        assertEquals("Actros 2651", repository.findById(id).getModel(), "A escrita conflitante não pode sobrescrever");
+
+        // Outro nó altera o status entre a leitura e a escrita da primeira tentativa
+        AtomicInteger tentativas = new AtomicInteger();
+
+        Vehicle atualizado = vehicleService.update(id, vehicle -> {
+            if (tentativas.incrementAndGet() == 1) {
+                new VehicleRepositoryImpl().updateStatus(id, VehicleStatus.IN_TRANSIT);
+            }
+
+            vehicle.setModel("Actros Retentado");
+            return vehicle;
+        });
+
+        assertEquals(2, tentativas.get());
+        assertEquals(3, atualizado.getVersion());
+
+        Vehicle doBanco = repository.findById(id);
+        assertEquals("Actros Retentado", doBanco.getModel());
+        assertEquals(VehicleStatus.IN_TRANSIT, doBanco.getStatus(), "A alteração concorrente deve ser preservada");
+        assertEquals(3, doBanco.getVersion());
+    }
+
+    @Test
+    @DisplayName("Change feed: Evento de transação lenta deve ser publicado quando ela confirmar, mesmo fora de ordem")
+    void devePublicarEventoAtrasadoDeTransacaoLenta() throws SQLException {
+        VehicleRepositoryImpl repository = new VehicleRepositoryImpl();
+        Vehicle lento = repository.save(new Vehicle(0, "LAT-0001", "Axor", LocalDate.of(2019, 1, 1), VehicleStatus.AVAILABLE));
+        Vehicle rapido = repository.save(new Vehicle(0, "LAT-0002", "Atego", LocalDate.of(2019, 1, 1), VehicleStatus.AVAILABLE));
+
+        try (ChangeFeedPoller poller = new ChangeFeedPoller(1, TimeUnit.HOURS);
+             Connection transacaoLenta = DatabaseConnection.getConnection()) {
+
+            List<ChangeEvent> recebidos = new ArrayList<>();
+            poller.subscribe(recebidos::addAll);
+
+            // A transação lenta reserva a versão antes da rápida, mas só confirma depois dela
+            transacaoLenta.setAutoCommit(false);
+
+            try (Statement stmt = transacaoLenta.createStatement()) {
+                stmt.executeUpdate("UPDATE vehicle SET status = 'IN_TRANSIT' WHERE id = " + lento.getId());
+                stmt.executeUpdate("INSERT INTO change_log (entity, entity_id, operation) VALUES ('VEHICLE', "
+                        + lento.getId() + ", 'UPDATE')");
+            }
+
+            repository.updateStatus(rapido.getId(), VehicleStatus.IN_TRANSIT);
+
+            assertEquals(1, poller.poll());
+            assertEquals(rapido.getId(), recebidos.get(0).entityId());
+            assertEquals(1, poller.getPendingHoles(), "A versão da transação lenta fica pendente");
+
+            transacaoLenta.commit();
+
+            assertEquals(1, poller.poll());
+            assertEquals(lento.getId(), recebidos.get(1).entityId());
+            assertEquals(0, poller.getPendingHoles());
+        }
+    }
+
     // --- Helpers SQL ---
 
     private int inserirVeiculoSQL(String plate, String model, LocalDate date, VehicleStatus status) throws SQLException {
@@ -314,4 +987,13 @@ public class VehicleRepositoryIntegrationTest {
             stmt.executeUpdate();
         }
     }
-}
\ No newline at end of file
+
+    private long serverId(Connection connection) throws SQLException {
+        try (Connection conn = connection;
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT @@server_id")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}